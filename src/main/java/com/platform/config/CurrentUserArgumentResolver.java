@@ -0,0 +1,45 @@
+package com.platform.config;
+
+import com.platform.service.SessionUserCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * 当前用户参数解析器
+ * <p>
+ * 为标注 @CurrentUser 的参数注入当前HTTP会话对应的登录用户，
+ * 通过会话用户缓存解析，缓存命中时不访问数据库。
+ * 请求没有HTTP会话时不会创建新会话，直接视为未登录
+ * </p>
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final SessionUserCache sessionUserCache;
+
+    @Autowired
+    public CurrentUserArgumentResolver(SessionUserCache sessionUserCache) {
+        this.sessionUserCache = sessionUserCache;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && SessionUserCache.SessionUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        HttpSession session = request != null ? request.getSession(false) : null;
+        return session != null ? sessionUserCache.resolve(session.getId()) : null;
+    }
+}
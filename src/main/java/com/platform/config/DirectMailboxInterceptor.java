@@ -0,0 +1,49 @@
+package com.platform.config;
+
+import com.platform.service.DirectMessageService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * 私信信箱投递拦截器
+ * <p>
+ * 入站通道由线程池异步处理，订阅事件发布时代理可能尚未登记订阅。
+ * 入站通道的各个处理器分别在不同线程上处理同一帧，只有用户目的地处理器
+ * 会将 /user 订阅转换为会话专属目的地并登记到代理，
+ * 因此在该处理器处理完SUBSCRIBE帧后再投递离线信箱，保证消息不会在订阅生效前丢失
+ * </p>
+ */
+@Component
+public class DirectMailboxInterceptor implements ExecutorChannelInterceptor {
+
+    private final DirectMessageService directMessageService;
+
+    @Autowired
+    public DirectMailboxInterceptor(@Lazy DirectMessageService directMessageService) {
+        this.directMessageService = directMessageService;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel,
+                                    MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof UserDestinationMessageHandler)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.SUBSCRIBE) {
+            return;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+        if (user != null && DirectMessageService.USER_DIRECT_DESTINATION.equals(destination)) {
+            directMessageService.deliverMailbox(user.getName());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.platform.config;
+
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 嵌入式STOMP代理配置
+ * <p>
+ * 在当前进程内启动一个ActiveMQ Artemis实例并开放STOMP端口，
+ * 便于在单机上验证代理中继模式以及多节点部署。
+ * 生产环境应连接独立部署的代理，仅将此项用于开发和测试
+ * </p>
+ */
+@org.springframework.context.annotation.Configuration
+@ConditionalOnProperty(prefix = "websocket.broker.embedded", name = "enabled", havingValue = "true")
+public class EmbeddedStompBrokerConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedStompBrokerConfig.class);
+
+    /**
+     * 嵌入式Artemis代理
+     * /topic/ 前缀映射为广播地址，/queue/ 前缀映射为点对点地址，与Spring的目的地约定一致
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public EmbeddedActiveMQ embeddedStompBroker(WebSocketBrokerProperties brokerProperties) throws Exception {
+        WebSocketBrokerProperties.Embedded embedded = brokerProperties.getEmbedded();
+        String acceptorUrl = String.format(
+                "tcp://%s:%d?protocols=STOMP;multicastPrefix=/topic/;anycastPrefix=/queue/",
+                embedded.getBindAddress(), embedded.getPort());
+
+        Configuration configuration = new ConfigurationImpl()
+                .setName("platform-embedded-broker")
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJMXManagementEnabled(false)
+                .addAcceptorConfiguration("stomp", acceptorUrl);
+
+        EmbeddedActiveMQ broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+        logger.info("嵌入式STOMP代理已配置: {}", acceptorUrl);
+        return broker;
+    }
+}
@@ -0,0 +1,90 @@
+package com.platform.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate二级缓存配置
+ * <p>
+ * 以进程内的Caffeine(JCache)作为二级缓存实现，缓存用户、房间实体及房间玩家集合，
+ * 并为按用户名、会话ID查询用户和可加入房间列表启用查询缓存。
+ * 通过Hibernate写入时由Hibernate负责失效，绕过Hibernate的JDBC写入需自行驱逐对应实体。
+ * 缓存命中情况由Hibernate统计信息提供，并通过 hibernate-micrometer 暴露为监控指标
+ * </p>
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityCacheConfig.class);
+
+    // 查询缓存依赖的表更新时间戳区域，不能淘汰或过期
+    private static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    /**
+     * 创建二级缓存使用的缓存管理器，按配置预先创建各缓存区域
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(EntityCacheProperties properties) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+
+        for (Map.Entry<String, EntityCacheProperties.Region> entry : properties.getRegions().entrySet()) {
+            EntityCacheProperties.Region region = entry.getValue();
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            if (region.getMaxSize() > 0) {
+                configuration.setMaximumSize(OptionalLong.of(region.getMaxSize()));
+            }
+            if (region.getTtlSeconds() > 0) {
+                configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(region.getTtlSeconds())));
+            }
+            createCache(cacheManager, entry.getKey(), configuration);
+        }
+        createCache(cacheManager, TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+
+        logger.info("二级缓存区域: {}", properties.getRegions().keySet());
+        return cacheManager;
+    }
+
+    /**
+     * 将二级缓存和查询缓存配置传给Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(EntityCacheProperties properties,
+                                                               CacheManager entityCacheManager) {
+        return hibernateProperties -> {
+            if (!properties.isEnabled()) {
+                hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+                hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, false);
+                return;
+            }
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, properties.isQueryCacheEnabled());
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            // 命中率统计
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    private void createCache(CacheManager cacheManager, String name, CaffeineConfiguration<Object, Object> configuration) {
+        configuration.setStatisticsEnabled(true);
+        if (cacheManager.getCache(name) != null) {
+            cacheManager.destroyCache(name);
+        }
+        cacheManager.createCache(name, configuration);
+    }
+}
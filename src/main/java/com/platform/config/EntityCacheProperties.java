@@ -0,0 +1,92 @@
+package com.platform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hibernate二级缓存配置属性类
+ * 配置二级缓存和查询缓存的开关，以及各缓存区域的容量上限和过期时间
+ */
+@Component
+@ConfigurationProperties(prefix = "entity-cache")
+public class EntityCacheProperties {
+
+    /** 用户实体缓存区域 */
+    public static final String USERS_REGION = "users";
+    /** 按用户名、会话ID查询用户的查询缓存区域 */
+    public static final String USER_LOOKUP_REGION = "users.lookup";
+    /** 房间实体缓存区域 */
+    public static final String ROOMS_REGION = "rooms";
+    /** 房间成员集合缓存区域 */
+    public static final String ROOM_PLAYERS_REGION = "rooms.players";
+    /** 房间成员实体缓存区域 */
+    public static final String ROOM_MEMBERS_REGION = "rooms.members";
+    /** 可加入房间列表的查询缓存区域 */
+    public static final String JOINABLE_ROOMS_REGION = "rooms.joinable";
+    /** 未指定区域的查询缓存使用的默认区域 */
+    public static final String DEFAULT_QUERY_REGION = "default-query-results-region";
+
+    /**
+     * 缓存区域配置
+     */
+    public static class Region {
+
+        /**
+         * 最多缓存的条目数
+         */
+        private long maxSize;
+
+        /**
+         * 写入后过期时间(秒)，0表示不过期
+         */
+        private long ttlSeconds;
+
+        public Region() {
+        }
+
+        public Region(long maxSize, long ttlSeconds) {
+            this.maxSize = maxSize;
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public long getMaxSize() { return maxSize; }
+        public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+        public long getTtlSeconds() { return ttlSeconds; }
+        public void setTtlSeconds(long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+    }
+
+    /**
+     * 是否启用二级缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 是否启用查询缓存，仅在二级缓存启用时生效
+     */
+    private boolean queryCacheEnabled = true;
+
+    /**
+     * 区域名 -> 区域配置
+     */
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    public EntityCacheProperties() {
+        regions.put(USERS_REGION, new Region(10000, 600));
+        regions.put(USER_LOOKUP_REGION, new Region(10000, 600));
+        regions.put(ROOMS_REGION, new Region(2000, 600));
+        regions.put(ROOM_PLAYERS_REGION, new Region(2000, 600));
+        regions.put(ROOM_MEMBERS_REGION, new Region(10000, 600));
+        regions.put(JOINABLE_ROOMS_REGION, new Region(100, 60));
+        regions.put(DEFAULT_QUERY_REGION, new Region(1000, 300));
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public boolean isQueryCacheEnabled() { return queryCacheEnabled; }
+    public void setQueryCacheEnabled(boolean queryCacheEnabled) { this.queryCacheEnabled = queryCacheEnabled; }
+    public Map<String, Region> getRegions() { return regions; }
+    public void setRegions(Map<String, Region> regions) { this.regions = regions; }
+}
@@ -0,0 +1,74 @@
+package com.platform.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 二级缓存统计
+ * 汇总Hibernate统计信息中各缓存区域及查询缓存的命中情况
+ */
+@Component
+public class EntityCacheStatistics {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityCacheProperties properties;
+
+    @Autowired
+    public EntityCacheStatistics(EntityManagerFactory entityManagerFactory, EntityCacheProperties properties) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.properties = properties;
+    }
+
+    /**
+     * 获取二级缓存统计信息
+     *
+     * @return 各区域的命中、未命中、写入次数和命中率，以及查询缓存的汇总
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("queryCacheEnabled", properties.isEnabled() && properties.isQueryCacheEnabled());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!properties.isEnabled() || !statistics.isStatisticsEnabled()) {
+            return stats;
+        }
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : properties.getRegions().keySet()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("hits", region.getHitCount());
+            regionStats.put("misses", region.getMissCount());
+            regionStats.put("puts", region.getPutCount());
+            regionStats.put("hitRatio", hitRatio(region.getHitCount(), region.getMissCount()));
+            regions.put(regionName, regionStats);
+        }
+        stats.put("regions", regions);
+
+        Map<String, Object> queryCache = new LinkedHashMap<>();
+        queryCache.put("hits", statistics.getQueryCacheHitCount());
+        queryCache.put("misses", statistics.getQueryCacheMissCount());
+        queryCache.put("hitRatio", hitRatio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+        stats.put("queryCache", queryCache);
+        stats.put("secondLevelCacheHitRatio",
+                hitRatio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()));
+        stats.put("entityLoads", statistics.getEntityLoadCount());
+        stats.put("queryExecutions", statistics.getQueryExecutionCount());
+        return stats;
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        long total = hits + misses;
+        return total > 0 ? (double) hits / total : 0.0;
+    }
+}
@@ -0,0 +1,152 @@
+package com.platform.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 可观测的消息通道线程池
+ * <p>
+ * 通过任务装饰器记录每个任务的排队等待时间和执行时间。
+ * 队列已满时由提交线程直接执行任务，从而向上游施加背压，并记录拒绝次数
+ * </p>
+ */
+public class MonitoredChannelExecutor extends ThreadPoolTaskExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitoredChannelExecutor.class);
+
+    private final String channelName;
+    private final boolean virtualThreads;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    /**
+     * @param channelName    通道名称
+     * @param pool           线程池配置
+     * @param virtualThreads 是否尝试使用虚拟线程
+     */
+    public MonitoredChannelExecutor(String channelName, WebSocketChannelProperties.Pool pool, boolean virtualThreads) {
+        this.channelName = channelName;
+        setThreadNamePrefix("ws-" + channelName + "-");
+        setCorePoolSize(pool.getCorePoolSize());
+        setMaxPoolSize(Math.max(pool.getCorePoolSize(), pool.getMaxPoolSize()));
+        setQueueCapacity(pool.getQueueCapacity());
+        setKeepAliveSeconds(pool.getKeepAliveSeconds());
+        setAllowCoreThreadTimeOut(true);
+        setTaskDecorator(this::decorate);
+        setRejectedExecutionHandler(this::rejected);
+        this.virtualThreads = virtualThreads && applyVirtualThreadFactory();
+    }
+
+    /**
+     * 获取线程池统计信息
+     *
+     * @return 包含活跃线程、队列深度和任务延迟的统计Map
+     */
+    public Map<String, Object> getStats() {
+        long count = completed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("channel", channelName);
+        stats.put("virtualThreads", virtualThreads);
+        stats.put("activeThreads", getActiveCount());
+        stats.put("poolSize", getPoolSize());
+        stats.put("corePoolSize", getCorePoolSize());
+        stats.put("maxPoolSize", getMaxPoolSize());
+        int queueDepth = 0;
+        int queueRemaining = 0;
+        if (isInitialized()) {
+            ThreadPoolExecutor executor = getThreadPoolExecutor();
+            queueDepth = executor.getQueue().size();
+            queueRemaining = executor.getQueue().remainingCapacity();
+        }
+        stats.put("queueDepth", queueDepth);
+        stats.put("queueRemaining", queueRemaining);
+        stats.put("completed", count);
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("avgWaitMicros", count == 0 ? 0 : totalWaitNanos.sum() / count / 1000);
+        stats.put("maxWaitMicros", maxWaitNanos.get() / 1000);
+        stats.put("avgRunMicros", count == 0 ? 0 : totalRunNanos.sum() / count / 1000);
+        stats.put("maxRunMicros", maxRunNanos.get() / 1000);
+        return stats;
+    }
+
+    public String getChannelName() {
+        return channelName;
+    }
+
+    private boolean isInitialized() {
+        try {
+            getThreadPoolExecutor();
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 包装任务，提交时记录时间，执行时统计排队和执行耗时
+     */
+    private Runnable decorate(Runnable task) {
+        long submittedAt = System.nanoTime();
+        return () -> {
+            long startedAt = System.nanoTime();
+            record(totalWaitNanos, maxWaitNanos, startedAt - submittedAt);
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                failed.increment();
+                throw e;
+            } finally {
+                record(totalRunNanos, maxRunNanos, System.nanoTime() - startedAt);
+                completed.increment();
+            }
+        };
+    }
+
+    private void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * 队列已满时由提交线程执行任务，线程池关闭后则丢弃
+     */
+    private void rejected(Runnable task, ThreadPoolExecutor executor) {
+        rejected.increment();
+        if (!executor.isShutdown()) {
+            task.run();
+        }
+    }
+
+    /**
+     * 通过反射使用虚拟线程工厂，当前JDK不支持时回退到平台线程
+     */
+    private boolean applyVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class)
+                    .invoke(builder, getThreadNamePrefix(), 0L);
+            setThreadFactory((java.util.concurrent.ThreadFactory) builderType.getMethod("factory").invoke(builder));
+            logger.info("WebSocket通道 {} 使用虚拟线程", channelName);
+            return true;
+        } catch (ReflectiveOperationException e) {
+            logger.warn("当前JDK({})不支持虚拟线程，WebSocket通道 {} 回退为平台线程池",
+                    System.getProperty("java.version"), channelName);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.platform.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 会话出站背压管理器
+ * <p>
+ * 为每个WebSocket会话维护独立的出站队列，发送线程只负责入队，
+ * 由写出线程池逐个会话排空队列，写得慢的客户端不会阻塞其他会话。
+ * 队列按目的地策略处理积压：大厅聊天丢弃最旧消息，房间更新按房间合并，
+ * 其余消息(包括 /user/queue/room.detail)可靠投递。
+ * 丢弃后仍超出上限或最旧消息滞留过久的会话视为慢消费者，以4001状态码主动断开
+ * </p>
+ */
+@Component
+public class OutboundBackpressureManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundBackpressureManager.class);
+
+    /** 房间更新消息携带的房间ID头，用于合并同一房间的更新 */
+    public static final String ROOM_ID_HEADER = "room-id";
+
+    /** 慢消费者断开状态码 */
+    public static final CloseStatus SLOW_CONSUMER = new CloseStatus(4001, "slow consumer");
+
+    // STOMP帧头部最多解析的字节数
+    private static final int MAX_HEADER_SCAN = 4096;
+    // 状态接口列出的最慢会话数量
+    private static final int TOP_SESSIONS = 10;
+
+    private final WebSocketOutboundProperties properties;
+    private final MonitoredChannelExecutor writer;
+
+    // WebSocket会话ID -> 出站队列
+    private final Map<String, OutboundSession> sessions = new ConcurrentHashMap<>();
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+    private final LongAdder slowConsumersClosed = new LongAdder();
+
+    @Autowired
+    public OutboundBackpressureManager(WebSocketOutboundProperties properties,
+                                       WebSocketChannelExecutors channelExecutors) {
+        this.properties = properties;
+        this.writer = channelExecutors.getWriter();
+    }
+
+    /**
+     * 包装WebSocket处理器，连接建立时以带出站队列的会话替换原会话
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        if (!properties.isEnabled()) {
+            return handler;
+        }
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                OutboundSession outboundSession = new OutboundSession(session);
+                sessions.put(session.getId(), outboundSession);
+                super.afterConnectionEstablished(outboundSession);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                OutboundSession outboundSession = sessions.remove(session.getId());
+                if (outboundSession != null) {
+                    outboundSession.discard();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * 获取出站队列统计信息
+     *
+     * @return 全局计数、当前慢会话数以及积压最多的会话
+     */
+    public Map<String, Object> getStats() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> snapshots = new ArrayList<>();
+        int slowSessions = 0;
+        long queuedMessages = 0;
+        long queuedBytes = 0;
+        for (OutboundSession session : sessions.values()) {
+            Map<String, Object> snapshot = session.snapshot(now);
+            long lag = (Long) snapshot.get("lagMillis");
+            if (lag >= properties.getSlowThresholdMillis()) {
+                slowSessions++;
+            }
+            queuedMessages += (Integer) snapshot.get("queuedMessages");
+            queuedBytes += (Integer) snapshot.get("queuedBytes");
+            snapshots.add(snapshot);
+        }
+        snapshots.sort((a, b) -> Long.compare((Long) b.get("lagMillis"), (Long) a.get("lagMillis")));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("sessions", sessions.size());
+        stats.put("slowSessions", slowSessions);
+        stats.put("queuedMessages", queuedMessages);
+        stats.put("queuedBytes", queuedBytes);
+        stats.put("enqueued", enqueued.sum());
+        stats.put("written", written.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("writeFailures", writeFailures.sum());
+        stats.put("slowConsumersClosed", slowConsumersClosed.sum());
+        stats.put("slowestSessions", snapshots.subList(0, Math.min(TOP_SESSIONS, snapshots.size())));
+        return stats;
+    }
+
+    /**
+     * 从STOMP MESSAGE帧中解析目的地和房间ID头
+     *
+     * @return [destination, roomId]，非MESSAGE帧返回null
+     */
+    static String[] parseFrameHeaders(WebSocketMessage<?> message) {
+        String head;
+        if (message instanceof TextMessage) {
+            String payload = ((TextMessage) message).getPayload();
+            int end = payload.indexOf("\n\n");
+            if (end < 0) {
+                end = payload.length();
+            }
+            head = payload.substring(0, Math.min(end, MAX_HEADER_SCAN));
+        } else if (message instanceof BinaryMessage) {
+            ByteBuffer buffer = ((BinaryMessage) message).getPayload().duplicate();
+            int length = Math.min(buffer.remaining(), MAX_HEADER_SCAN);
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            int end = length;
+            for (int i = 0; i + 1 < length; i++) {
+                if (bytes[i] == '\n' && bytes[i + 1] == '\n') {
+                    end = i;
+                    break;
+                }
+            }
+            head = new String(bytes, 0, end, StandardCharsets.UTF_8);
+        } else {
+            return null;
+        }
+        if (!head.startsWith("MESSAGE\n")) {
+            return null;
+        }
+        String[] result = new String[2];
+        for (String line : head.split("\n")) {
+            if (result[0] == null && line.startsWith("destination:")) {
+                result[0] = line.substring("destination:".length());
+            } else if (result[1] == null && line.startsWith(ROOM_ID_HEADER + ":")) {
+                result[1] = line.substring(ROOM_ID_HEADER.length() + 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 排队中的出站消息
+     */
+    private static class Entry {
+        private WebSocketMessage<?> message;
+        private int bytes;
+        private final WebSocketOutboundProperties.Policy policy;
+        private final String coalesceKey;
+        private final long enqueuedAt;
+
+        private Entry(WebSocketMessage<?> message, WebSocketOutboundProperties.Policy policy,
+                      String coalesceKey, long enqueuedAt) {
+            this.message = message;
+            this.bytes = message.getPayloadLength();
+            this.policy = policy;
+            this.coalesceKey = coalesceKey;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * 带出站队列的会话
+     * 队列状态由自身对象锁保护，同一时刻最多一个写出任务在排空队列
+     */
+    private class OutboundSession extends WebSocketSessionDecorator {
+
+        private final Deque<Entry> queue = new ArrayDeque<>();
+        // 合并键 -> 尚未写出的消息
+        private final Map<String, Entry> pendingUpdates = new HashMap<>();
+        private int queuedBytes;
+        private int peakQueuedMessages;
+        private boolean writing;
+        private boolean closed;
+
+        OutboundSession(WebSocketSession delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            long now = System.currentTimeMillis();
+            String[] headers = parseFrameHeaders(message);
+            WebSocketOutboundProperties.Policy policy = headers != null
+                    ? properties.resolvePolicy(headers[0])
+                    : WebSocketOutboundProperties.Policy.RELIABLE;
+            String coalesceKey = policy == WebSocketOutboundProperties.Policy.COALESCE && headers[1] != null
+                    ? headers[0] + "#" + headers[1]
+                    : null;
+
+            String slowReason = null;
+            boolean schedule = false;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                enqueued.increment();
+                Entry pending = coalesceKey != null ? pendingUpdates.get(coalesceKey) : null;
+                if (pending != null) {
+                    // 原位替换为最新状态，保持其在队列中的位置
+                    queuedBytes += message.getPayloadLength() - pending.bytes;
+                    pending.message = message;
+                    pending.bytes = message.getPayloadLength();
+                    coalesced.increment();
+                } else {
+                    Entry entry = new Entry(message, policy, coalesceKey, now);
+                    queue.addLast(entry);
+                    queuedBytes += entry.bytes;
+                    if (coalesceKey != null) {
+                        pendingUpdates.put(coalesceKey, entry);
+                    }
+                }
+                while (isOverLimit() && dropOldest()) {
+                    dropped.increment();
+                }
+                peakQueuedMessages = Math.max(peakQueuedMessages, queue.size());
+
+                Entry oldest = queue.peekFirst();
+                if (isOverLimit()) {
+                    slowReason = "出站队列超出上限: " + queue.size() + " 条/" + queuedBytes + " 字节";
+                } else if (oldest != null && now - oldest.enqueuedAt > properties.getMaxLagMillis()) {
+                    slowReason = "出站消息滞留 " + (now - oldest.enqueuedAt) + " 毫秒";
+                } else if (oldest != null && !writing) {
+                    writing = true;
+                    schedule = true;
+                }
+            }
+
+            if (slowReason != null) {
+                closeSlowConsumer(slowReason);
+            } else if (schedule) {
+                try {
+                    writer.execute(this::drain);
+                } catch (TaskRejectedException e) {
+                    synchronized (this) {
+                        writing = false;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 写出任务：依次写出队列中的消息直到队列为空
+         */
+        private void drain() {
+            while (true) {
+                Entry entry;
+                synchronized (this) {
+                    entry = closed ? null : queue.pollFirst();
+                    if (entry == null) {
+                        writing = false;
+                        return;
+                    }
+                    queuedBytes -= entry.bytes;
+                    if (entry.coalesceKey != null) {
+                        pendingUpdates.remove(entry.coalesceKey, entry);
+                    }
+                }
+                try {
+                    getDelegate().sendMessage(entry.message);
+                    written.increment();
+                } catch (IOException | RuntimeException e) {
+                    writeFailures.increment();
+                    logger.debug("向会话 {} 写出消息失败: {}", getId(), e.getMessage());
+                    discard();
+                    closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+                    return;
+                }
+            }
+        }
+
+        private boolean isOverLimit() {
+            return queue.size() > properties.getMaxQueuedMessages() || queuedBytes > properties.getMaxQueuedBytes();
+        }
+
+        /**
+         * 移除队列中最旧的一条可丢弃消息
+         *
+         * @return 没有可丢弃的消息时返回false
+         */
+        private boolean dropOldest() {
+            Iterator<Entry> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.policy == WebSocketOutboundProperties.Policy.DROP_OLDEST) {
+                    iterator.remove();
+                    queuedBytes -= entry.bytes;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void closeSlowConsumer(String reason) {
+            if (discard()) {
+                slowConsumersClosed.increment();
+                logger.warn("会话 {} 为慢消费者，主动断开: {}", getId(), reason);
+                closeQuietly(SLOW_CONSUMER);
+            }
+        }
+
+        /**
+         * 清空队列并停止写出
+         *
+         * @return 本次调用是否执行了关闭
+         */
+        private synchronized boolean discard() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            queue.clear();
+            pendingUpdates.clear();
+            queuedBytes = 0;
+            return true;
+        }
+
+        private void closeQuietly(CloseStatus status) {
+            try {
+                getDelegate().close(status);
+            } catch (IOException e) {
+                logger.debug("关闭会话 {} 失败: {}", getId(), e.getMessage());
+            }
+        }
+
+        private synchronized Map<String, Object> snapshot(long now) {
+            Entry oldest = queue.peekFirst();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("sessionId", getId());
+            snapshot.put("queuedMessages", queue.size());
+            snapshot.put("queuedBytes", queuedBytes);
+            snapshot.put("peakQueuedMessages", peakQueuedMessages);
+            snapshot.put("lagMillis", oldest != null ? now - oldest.enqueuedAt : 0L);
+            snapshot.put("writing", writing);
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.platform.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * STOMP消息体编码协商拦截器
+ * <p>
+ * 客户端在CONNECT帧中携带 payload-encoding:cbor 头即可改为接收CBOR编码的消息体，
+ * 未声明或通过SockJS连接(仅支持文本帧)的会话继续使用JSON。
+ * CBOR消息以二进制帧发送，content-type为application/octet-stream，
+ * 并附带 payload-encoding:cbor 头。
+ * 代理向多个订阅者分发同一条消息时共享同一个消息体数组，
+ * 因此按数组实例缓存转码结果，每条广播只转码一次。
+ * </p>
+ * <p>
+ * 取舍：CBOR仍然逐条重复map的键，对本服务的消息结构只节省约11%~25%的字节，
+ * 而每次转码的CPU开销约为JSON编码本身的1.5~2倍(见测试目录中的 PayloadEncodingBenchmark)。
+ * 适合带宽受限、CPU充裕的客户端按需开启；多数CBOR会话订阅同一批广播时转码开销由缓存摊薄，
+ * 主要是私信和房间详情等单播消息逐条付出转码成本
+ * </p>
+ */
+@Component
+public class PayloadEncodingInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayloadEncodingInterceptor.class);
+
+    public static final String ENCODING_HEADER = "payload-encoding";
+    public static final String CBOR_ENCODING = "cbor";
+    public static final MimeType CBOR_MIME_TYPE = new MimeType("application", "cbor");
+
+    // 会话属性：底层连接能否发送二进制帧
+    private static final String BINARY_FRAMES_ATTRIBUTE = "binaryFrames";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+
+    // 协商使用CBOR的会话ID
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+    // JSON消息体(按实例) -> CBOR消息体
+    private final Map<byte[], byte[]> transcodeCache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final AtomicLong transcoded = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong jsonBytes = new AtomicLong();
+    private final AtomicLong cborBytes = new AtomicLong();
+
+    /**
+     * 包装WebSocket处理器，在连接建立时记录底层会话能否发送二进制帧
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                session.getAttributes().put(BINARY_FRAMES_ATTRIBUTE, !(session instanceof SockJsSession));
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                cborSessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * 入站通道：CONNECT时协商编码
+     * 出站通道：向协商了CBOR的会话发送消息前转码
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(headers);
+        if (messageType == SimpMessageType.CONNECT) {
+            negotiate(StompHeaderAccessor.wrap(message));
+            return message;
+        }
+
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (messageType != SimpMessageType.MESSAGE || sessionId == null || !cborSessions.contains(sessionId)
+                || !(message.getPayload() instanceof byte[])) {
+            return message;
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        MimeType contentType = accessor.getContentType();
+        if (contentType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+
+        byte[] cbor = transcode((byte[]) message.getPayload());
+        if (cbor == null) {
+            return message;
+        }
+        accessor.updateStompCommandAsServerMessage();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(ENCODING_HEADER, CBOR_ENCODING);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    /**
+     * 获取编码统计信息
+     *
+     * @return 使用CBOR的会话数、转码次数、缓存命中和字节数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cborSessions", cborSessions.size());
+        stats.put("transcoded", transcoded.get());
+        stats.put("cacheHits", cacheHits.get());
+        stats.put("jsonBytes", jsonBytes.get());
+        stats.put("cborBytes", cborBytes.get());
+        return stats;
+    }
+
+    private void negotiate(StompHeaderAccessor accessor) {
+        if (!CBOR_ENCODING.equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER))) {
+            return;
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes != null && Boolean.TRUE.equals(attributes.get(BINARY_FRAMES_ATTRIBUTE))) {
+            cborSessions.add(accessor.getSessionId());
+            logger.debug("会话 {} 使用CBOR编码", accessor.getSessionId());
+        } else {
+            logger.debug("会话 {} 不支持二进制帧，继续使用JSON编码", accessor.getSessionId());
+        }
+    }
+
+    /**
+     * JSON消息体流式转码为CBOR，同一数组实例只转码一次
+     */
+    private byte[] transcode(byte[] json) {
+        byte[] cached = transcodeCache.get(json);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return cached;
+        }
+        byte[] cbor;
+        try {
+            cbor = transcodeToCbor(json);
+        } catch (IOException e) {
+            logger.warn("消息体转码为CBOR失败，按JSON发送: {}", e.getMessage());
+            return null;
+        }
+        transcodeCache.put(json, cbor);
+        transcoded.incrementAndGet();
+        jsonBytes.addAndGet(json.length);
+        cborBytes.addAndGet(cbor.length);
+        return cbor;
+    }
+
+    /**
+     * 逐个复制JSON标记到CBOR生成器，不构建对象树
+     */
+    byte[] transcodeToCbor(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = cborFactory.createGenerator(out)) {
+            while (parser.nextToken() != null) {
+                generator.copyCurrentStructure(parser);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,241 @@
+package com.platform.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 定时任务执行器
+ * <p>
+ * 持有定时任务专用的线程池，各任务互不阻塞。每个任务执行时：
+ * 上一次执行尚未结束则跳过本次；超过配置的超时时间时记录告警和指标，
+ * 任务本身不被中断(任务大多持有数据库事务，中断可能导致连接或数据库文件被关闭)，
+ * 结束前不会再次执行；记录每次执行的耗时和结果，通过指标和状态接口查看
+ * </p>
+ */
+@Component
+public class ScheduledJobRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledJobRunner.class);
+
+    public enum Outcome {
+        SUCCESS, FAILED, TIMED_OUT
+    }
+
+    /**
+     * 单个任务的执行状态
+     */
+    private static class JobState {
+        final String name;
+        final String schedule;
+        final long timeoutMillis;
+        final long jitterMillis;
+        final AtomicBoolean running = new AtomicBoolean();
+        final AtomicLong runs = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong timeouts = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        volatile boolean timedOut;
+        volatile Instant lastStartedAt;
+        volatile long lastDurationMillis;
+        volatile Outcome lastOutcome;
+        volatile String lastError;
+        volatile Instant nextRunAt;
+
+        JobState(String name, String schedule, long timeoutMillis, long jitterMillis) {
+            this.name = name;
+            this.schedule = schedule;
+            this.timeoutMillis = timeoutMillis;
+            this.jitterMillis = jitterMillis;
+        }
+    }
+
+    private final SchedulingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolTaskScheduler scheduler;
+    private final Map<String, JobState> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ScheduledJobRunner(SchedulingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, properties.getPoolSize()));
+        scheduler.setThreadNamePrefix("scheduler-");
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        scheduler.initialize();
+        // 关闭时只等待正在执行的任务，不再执行已排期的下一次触发
+        scheduler.getScheduledThreadPoolExecutor().setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * 定时任务线程池
+     */
+    public ThreadPoolTaskScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * 登记任务，返回带有防重入、超时告警和耗时记录的执行体
+     *
+     * @param name 任务名，对应 scheduling.jobs 下的配置
+     * @param schedule 触发规则的说明，用于状态展示
+     * @param task 任务内容
+     * @return 交给调度器执行的任务
+     */
+    public Runnable register(String name, String schedule, Runnable task) {
+        SchedulingProperties.Job config = properties.getJob(name);
+        JobState job = new JobState(name, schedule, config.getTimeoutMillis(), config.getJitterMillis());
+        jobs.put(name, job);
+        return () -> run(job, task);
+    }
+
+    /**
+     * 为触发器加上随机抖动，每次触发时间在原时间之后 [0, jitter] 内随机推迟
+     *
+     * @param name 任务名
+     * @param trigger 原触发器
+     * @return 带抖动的触发器
+     */
+    public Trigger jittered(String name, Trigger trigger) {
+        JobState job = jobs.get(name);
+        long jitterMillis = job != null ? job.jitterMillis : 0;
+        return new Trigger() {
+            @Override
+            public Instant nextExecution(TriggerContext triggerContext) {
+                Instant next = trigger.nextExecution(triggerContext);
+                if (next != null && jitterMillis > 0) {
+                    next = next.plusMillis(ThreadLocalRandom.current().nextLong(jitterMillis + 1));
+                }
+                if (job != null) {
+                    job.nextRunAt = next;
+                }
+                return next;
+            }
+        };
+    }
+
+    /**
+     * 获取定时任务状态
+     *
+     * @return 线程池使用情况及各任务最近一次的执行结果
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", scheduler.getPoolSize());
+        stats.put("activeThreads", scheduler.getActiveCount());
+        stats.put("queuedTasks", scheduler.getScheduledThreadPoolExecutor().getQueue().size());
+
+        Map<String, Object> jobStats = new LinkedHashMap<>();
+        for (JobState job : jobs.values()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("schedule", job.schedule);
+            item.put("timeoutMillis", job.timeoutMillis);
+            item.put("jitterMillis", job.jitterMillis);
+            item.put("running", job.running.get());
+            item.put("lastStartedAt", job.lastStartedAt);
+            item.put("lastDurationMillis", job.lastDurationMillis);
+            item.put("lastOutcome", job.lastOutcome != null ? job.lastOutcome.name() : null);
+            item.put("lastError", job.lastError);
+            item.put("nextRunAt", job.nextRunAt);
+            item.put("runs", job.runs.get());
+            item.put("failures", job.failures.get());
+            item.put("timeouts", job.timeouts.get());
+            item.put("skipped", job.skipped.get());
+            jobStats.put(job.name, item);
+        }
+        stats.put("jobs", jobStats);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private void run(JobState job, Runnable task) {
+        if (!job.running.compareAndSet(false, true)) {
+            job.skipped.incrementAndGet();
+            Counter.builder("scheduled.job.skipped").tag("job", job.name).register(meterRegistry).increment();
+            logger.warn("定时任务 {} 上一次执行尚未结束，跳过本次执行", job.name);
+            return;
+        }
+
+        job.timedOut = false;
+        Instant startedAt = Instant.now();
+        job.lastStartedAt = startedAt;
+        long start = System.nanoTime();
+        ScheduledFuture<?> watchdog = null;
+        if (job.timeoutMillis > 0) {
+            try {
+                watchdog = scheduler.schedule(() -> onTimeout(job, startedAt), startedAt.plusMillis(job.timeoutMillis));
+            } catch (TaskRejectedException e) {
+                // 线程池正在关闭，本次执行不再计时
+            }
+        }
+
+        Outcome outcome = Outcome.SUCCESS;
+        String error = null;
+        try {
+            task.run();
+        } catch (Exception e) {
+            outcome = Outcome.FAILED;
+            error = e.getMessage();
+            logger.error("定时任务 {} 执行失败: {}", job.name, e.getMessage(), e);
+        } finally {
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
+            long nanos = System.nanoTime() - start;
+            if (outcome == Outcome.SUCCESS && job.timedOut) {
+                outcome = Outcome.TIMED_OUT;
+            }
+            if (outcome == Outcome.FAILED) {
+                job.failures.incrementAndGet();
+            }
+            job.runs.incrementAndGet();
+            job.lastDurationMillis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            job.lastOutcome = outcome;
+            job.lastError = error;
+            Timer.builder("scheduled.job")
+                    .description("定时任务执行耗时")
+                    .tag("job", job.name)
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            job.running.set(false);
+        }
+    }
+
+    private void onTimeout(JobState job, Instant startedAt) {
+        // 只处理仍在进行的同一次执行
+        if (!job.running.get() || job.lastStartedAt != startedAt) {
+            return;
+        }
+        job.timedOut = true;
+        job.timeouts.incrementAndGet();
+        Counter.builder("scheduled.job.timeouts").tag("job", job.name).register(meterRegistry).increment();
+        logger.warn("定时任务 {} 已执行超过 {} 毫秒，仍在运行", job.name, job.timeoutMillis);
+    }
+}
@@ -1,80 +1,147 @@
 package com.platform.config;
 
-import com.platform.service.RoomService;
-import com.platform.service.UserService;
+import com.platform.service.InactiveUserPurgeJob;
+import com.platform.service.RoomEventRelay;
+import com.platform.service.TimingWheel;
+import com.platform.service.UserActivityTracker;
 import com.platform.service.VirtualNetworkFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.scheduling.support.PeriodicTrigger;
+
+import java.time.Duration;
 
 /**
  * 系统定时任务配置
- * 管理各类资源的定期维护任务
+ * 管理各类资源的定期维护任务。任务在专用线程池中执行，慢任务不会推迟其他任务；
+ * 每个任务的防重入、超时告警、触发抖动和执行记录由 {@link ScheduledJobRunner} 负责，
+ * 周期任务在上一次结束后按间隔再次执行。
+ * 断线玩家、空房间、闲置网络等对象的到期处理由 {@link TimingWheel} 按对象登记，此处只负责推进时间轮
  */
 @Configuration
 @EnableScheduling
-public class SchedulingConfig {
+public class SchedulingConfig implements SchedulingConfigurer {
 
     private static final Logger logger = LoggerFactory.getLogger(SchedulingConfig.class);
 
-    private final UserService userService;
-    private final RoomService roomService;
+    private final InactiveUserPurgeJob inactiveUserPurgeJob;
     private final VirtualNetworkFactory virtualNetworkFactory;
+    private final UserActivityTracker userActivityTracker;
+    private final RoomEventRelay roomEventRelay;
+    private final TimingWheel timingWheel;
+    private final ScheduledJobRunner jobRunner;
+
+    @Value("${user.purge.cron:0 0 0 1 * *}")
+    private String userPurgeCron;
+
+    @Value("${user.activity.flush-interval-ms:10000}")
+    private long activityFlushIntervalMillis;
+
+    @Value("${room.events.relay-interval-ms:200}")
+    private long roomEventRelayIntervalMillis;
+
+    @Value("${timing-wheel.tick-millis:100}")
+    private long timingWheelTickMillis;
 
     @Autowired
-    public SchedulingConfig(UserService userService, RoomService roomService,
-                            VirtualNetworkFactory virtualNetworkFactory) {
-        this.userService = userService;
-        this.roomService = roomService;
+    public SchedulingConfig(InactiveUserPurgeJob inactiveUserPurgeJob, VirtualNetworkFactory virtualNetworkFactory,
+                            UserActivityTracker userActivityTracker, RoomEventRelay roomEventRelay,
+                            TimingWheel timingWheel, ScheduledJobRunner jobRunner) {
+        this.inactiveUserPurgeJob = inactiveUserPurgeJob;
         this.virtualNetworkFactory = virtualNetworkFactory;
+        this.userActivityTracker = userActivityTracker;
+        this.roomEventRelay = roomEventRelay;
+        this.timingWheel = timingWheel;
+        this.jobRunner = jobRunner;
+    }
+
+    /**
+     * 在专用线程池中登记全部定时任务
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.setTaskScheduler(jobRunner.getScheduler());
+
+        cron(registrar, SchedulingProperties.USER_PURGE, userPurgeCron, this::cleanupInactiveUsers);
+        fixedDelay(registrar, SchedulingProperties.NETWORK_STATUS_CHECK, 900000, this::checkNetworkStatus);
+        fixedDelay(registrar, SchedulingProperties.USER_ACTIVITY_FLUSH, activityFlushIntervalMillis,
+                this::flushUserActivity);
+        fixedDelay(registrar, SchedulingProperties.TIMING_WHEEL, timingWheelTickMillis, this::advanceTimingWheel);
+        fixedDelay(registrar, SchedulingProperties.ROOM_EVENT_RELAY, roomEventRelayIntervalMillis,
+                this::relayRoomEvents);
+        cron(registrar, SchedulingProperties.ROOM_EVENT_PURGE, "0 30 * * * *", this::purgeRoomEvents);
+    }
+
+    private void cron(ScheduledTaskRegistrar registrar, String name, String expression, Runnable task) {
+        schedule(registrar, name, "cron: " + expression, new CronTrigger(expression), task);
+    }
+
+    private void fixedDelay(ScheduledTaskRegistrar registrar, String name, long delayMillis, Runnable task) {
+        schedule(registrar, name, "fixed-delay: " + delayMillis + "ms",
+                new PeriodicTrigger(Duration.ofMillis(delayMillis)), task);
+    }
+
+    private void schedule(ScheduledTaskRegistrar registrar, String name, String description, Trigger trigger,
+                          Runnable task) {
+        Runnable job = jobRunner.register(name, description, task);
+        registrar.addTriggerTask(job, jobRunner.jittered(name, trigger));
     }
 
     /**
      * 每月1号0点清理不活跃用户
+     * 清理在独立线程中分批执行，此处只负责启动
      */
-    @Scheduled(cron = "0 0 0 1 * *")
     public void cleanupInactiveUsers() {
         logger.info("执行定时任务: 清理不活跃用户");
-        userService.cleanupInactiveUsers();
+        if (!inactiveUserPurgeJob.start()) {
+            logger.info("不活跃用户清理仍在进行，跳过本次启动");
+        }
     }
 
     /**
-     * 每小时清理空房间
+     * 每15分钟检查虚拟网络状态(上一次结束后15分钟)
      */
-    @Scheduled(cron = "0 0 * * * *")
-    public void cleanupEmptyRooms() {
-        logger.info("执行定时任务: 清理空房间");
-        roomService.cleanupEmptyRooms();
+    public void checkNetworkStatus() {
+        logger.info("执行定时任务: 检查虚拟网络状态");
+        virtualNetworkFactory.checkNetworkStatus();
     }
 
     /**
-     * 每5分钟刷新可加入房间列表
+     * 批量写回用户活动时间
+     * 默认每10秒执行一次，可通过配置修改
      */
-    @Scheduled(fixedRate = 300000)
-    public void refreshJoinableRooms() {
-        logger.info("执行定时任务: 刷新可加入房间列表并清理数据");
-        roomService.getJoinableRooms();
+    public void flushUserActivity() {
+        userActivityTracker.flush();
     }
 
     /**
-     * 清理未使用的虚拟网络资源
-     * 默认每6小时执行一次，可通过配置修改
+     * 推进时间轮，执行到期的定时器
+     * 默认每100毫秒执行一次，与时间轮的刻度一致
      */
-    @Scheduled(cron = "${virtual.network.cleanup.cron-expression:0 0 */6 * * *}")
-    public void cleanupUnusedNetworks() {
-        logger.info("执行定时任务: 清理未使用的虚拟网络资源");
-        virtualNetworkFactory.cleanupUnusedNetworks();
+    public void advanceTimingWheel() {
+        timingWheel.advance();
     }
 
     /**
-     * 每15分钟检查虚拟网络状态
+     * 投递房间事件
+     * 默认每200毫秒执行一次，积压时每次投递一批
      */
-    @Scheduled(fixedRate = 900000)
-    public void checkNetworkStatus() {
-        logger.info("执行定时任务: 检查虚拟网络状态");
-        virtualNetworkFactory.checkNetworkStatus();
+    public void relayRoomEvents() {
+        roomEventRelay.relay();
+    }
+
+    /**
+     * 每小时删除已投递且超过保留时长的房间事件
+     */
+    public void purgeRoomEvents() {
+        roomEventRelay.purgeExpired();
     }
-}
\ No newline at end of file
+}
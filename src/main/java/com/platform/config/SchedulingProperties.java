@@ -0,0 +1,90 @@
+package com.platform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 定时任务配置属性类
+ * 配置定时任务线程池大小，以及各任务的超时时间和触发时间的随机抖动
+ */
+@Component
+@ConfigurationProperties(prefix = "scheduling")
+public class SchedulingProperties {
+
+    /** 启动不活跃用户清理 */
+    public static final String USER_PURGE = "user-purge";
+    /** 检查虚拟网络状态 */
+    public static final String NETWORK_STATUS_CHECK = "network-status-check";
+    /** 写回用户活动时间 */
+    public static final String USER_ACTIVITY_FLUSH = "user-activity-flush";
+    /** 推进时间轮，执行到期的定时器 */
+    public static final String TIMING_WHEEL = "timing-wheel";
+    /** 投递房间事件 */
+    public static final String ROOM_EVENT_RELAY = "room-event-relay";
+    /** 删除过期的房间事件 */
+    public static final String ROOM_EVENT_PURGE = "room-event-purge";
+
+    /**
+     * 单个任务的配置
+     */
+    public static class Job {
+
+        /**
+         * 超时时间(毫秒)，超时后记录告警，0表示不限制
+         */
+        private long timeoutMillis;
+
+        /**
+         * 每次触发时间随机推迟的上限(毫秒)，多个节点的同一任务错开执行，0表示不抖动
+         */
+        private long jitterMillis;
+
+        public Job() {
+        }
+
+        public Job(long timeoutMillis, long jitterMillis) {
+            this.timeoutMillis = timeoutMillis;
+            this.jitterMillis = jitterMillis;
+        }
+
+        public long getTimeoutMillis() { return timeoutMillis; }
+        public void setTimeoutMillis(long timeoutMillis) { this.timeoutMillis = timeoutMillis; }
+        public long getJitterMillis() { return jitterMillis; }
+        public void setJitterMillis(long jitterMillis) { this.jitterMillis = jitterMillis; }
+    }
+
+    /**
+     * 定时任务线程数
+     */
+    private int poolSize = 4;
+
+    /**
+     * 任务名 -> 任务配置，未配置的任务不超时、不抖动
+     */
+    private Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public SchedulingProperties() {
+        jobs.put(USER_PURGE, new Job(10000, 0));
+        jobs.put(NETWORK_STATUS_CHECK, new Job(120000, 60000));
+        jobs.put(USER_ACTIVITY_FLUSH, new Job(10000, 1000));
+        jobs.put(TIMING_WHEEL, new Job(10000, 0));
+        jobs.put(ROOM_EVENT_RELAY, new Job(5000, 0));
+        jobs.put(ROOM_EVENT_PURGE, new Job(300000, 300000));
+    }
+
+    public int getPoolSize() { return poolSize; }
+    public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+    public Map<String, Job> getJobs() { return jobs; }
+    public void setJobs(Map<String, Job> jobs) { this.jobs = jobs; }
+
+    /**
+     * 获取任务配置，未配置时返回不超时、不抖动的默认配置
+     */
+    public Job getJob(String name) {
+        Job job = jobs.get(name);
+        return job != null ? job : new Job();
+    }
+}
@@ -0,0 +1,74 @@
+package com.platform.config;
+
+import com.platform.service.SessionUserCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * STOMP连接认证拦截器
+ * <p>
+ * 仅在CONNECT帧时根据会话ID解析一次用户，并将用户身份绑定到WebSocket会话，
+ * 之后同一连接上的所有帧都直接携带该身份，无需再次查询。
+ * 会话ID到用户的解析经过会话用户缓存，重连时通常也不访问数据库
+ * </p>
+ */
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompAuthChannelInterceptor.class);
+
+    private final SessionUserCache sessionUserCache;
+
+    @Autowired
+    public StompAuthChannelInterceptor(SessionUserCache sessionUserCache) {
+        this.sessionUserCache = sessionUserCache;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+
+        String sessionId = resolveSessionId(accessor);
+        if (sessionId == null) {
+            logger.debug("STOMP连接未携带会话ID，以匿名身份连接");
+            return message;
+        }
+
+        SessionUserCache.SessionUser user = sessionUserCache.resolve(sessionId);
+        if (user != null) {
+            accessor.setUser(new StompPrincipal(user.getUserId(), user.getUsername()));
+            logger.debug("STOMP连接已认证: {}", user.getUsername());
+        } else {
+            logger.debug("STOMP连接的会话ID无对应登录用户: {}", sessionId);
+        }
+        return message;
+    }
+
+    /**
+     * 优先使用握手时记录的会话ID，其次使用CONNECT帧中的sessionId头
+     */
+    private String resolveSessionId(StompHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes != null) {
+            Object sessionId = attributes.get("sessionId");
+            if (sessionId instanceof String && !((String) sessionId).isEmpty()) {
+                return (String) sessionId;
+            }
+        }
+        String headerValue = accessor.getFirstNativeHeader("sessionId");
+        return headerValue != null && !headerValue.isEmpty() ? headerValue : null;
+    }
+}
@@ -0,0 +1,238 @@
+package com.platform.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * WebSocket/STOMP监控指标
+ * <p>
+ * 以Micrometer指标记录会话数、按目的地模式统计的订阅数、收发帧数和字节数、
+ * 广播扇出规模、消息写出耗时以及入站消息处理耗时，通过 /actuator/prometheus 暴露。
+ * 订阅目的地由客户端决定，只有应用实际使用的目的地按固定模式打标签，
+ * 房间ID和游戏名折叠为占位符，其余目的地一律归为 other，标签基数固定
+ * </p>
+ */
+@Component
+public class StompMetrics implements ExecutorChannelInterceptor {
+
+    static final String OTHER_DESTINATION = "other";
+
+    // 应用使用的固定目的地
+    private static final Set<String> KNOWN_DESTINATIONS = Set.of(
+            "/topic/lobby.messages",
+            "/topic/rooms.updates",
+            "/topic/rooms.events",
+            "/topic/users.status",
+            "/topic/system.notifications",
+            "/user/queue/direct",
+            "/user/queue/heartbeat",
+            "/user/queue/room.detail",
+            "/user/queue/chat.ack");
+    private static final Pattern GAME_ROOM_UPDATES = Pattern.compile("/topic/rooms\\.updates\\.[\\p{L}\\p{N}_-]+");
+    private static final Pattern ROOM_MESSAGES = Pattern.compile("/topic/room\\.\\d+\\.messages");
+
+    private final MeterRegistry registry;
+
+    private final AtomicInteger openSessions = new AtomicInteger();
+    // 目的地模式 -> 订阅数
+    private final Map<String, AtomicInteger> subscriptionsByPattern = new ConcurrentHashMap<>();
+    // 处理器类名 -> 处理耗时
+    private final Map<String, Timer> handlingTimers = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> handlingStart = new ThreadLocal<>();
+
+    private final Counter framesIn;
+    private final Counter framesOut;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+    private final Timer sendLatency;
+    private final Timer broadcastLatency;
+    private final DistributionSummary fanOut;
+
+    @Autowired
+    public StompMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("stomp.sessions", openSessions, AtomicInteger::get)
+                .description("当前打开的WebSocket会话数")
+                .register(registry);
+        this.framesIn = Counter.builder("stomp.frames").tag("direction", "in").register(registry);
+        this.framesOut = Counter.builder("stomp.frames").tag("direction", "out").register(registry);
+        this.bytesIn = Counter.builder("stomp.bytes").tag("direction", "in").baseUnit("bytes").register(registry);
+        this.bytesOut = Counter.builder("stomp.bytes").tag("direction", "out").baseUnit("bytes").register(registry);
+        this.sendLatency = Timer.builder("stomp.send.latency")
+                .description("单帧写出到底层连接的耗时")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.broadcastLatency = Timer.builder("stomp.broadcast.latency")
+                .description("服务端发布一条广播到代理的耗时")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        this.fanOut = DistributionSummary.builder("stomp.broadcast.fanout")
+                .description("每条广播的本地订阅者数")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * 包装WebSocket处理器，统计会话数和入站帧，并以计时会话替换原会话统计出站帧
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                openSessions.incrementAndGet();
+                super.afterConnectionEstablished(new MeteredSession(session));
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                framesIn.increment();
+                bytesIn.increment(message.getPayloadLength());
+                super.handleMessage(session, message);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                openSessions.decrementAndGet();
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * 记录新增订阅
+     *
+     * @param destination 订阅的目的地
+     */
+    public void subscriptionAdded(String destination) {
+        subscriptionsByPattern.computeIfAbsent(destinationPattern(destination), pattern -> {
+            AtomicInteger count = new AtomicInteger();
+            Gauge.builder("stomp.subscriptions", count, AtomicInteger::get)
+                    .tag("destination", pattern)
+                    .register(registry);
+            return count;
+        }).incrementAndGet();
+    }
+
+    /**
+     * 记录取消订阅
+     *
+     * @param destination 订阅的目的地
+     */
+    public void subscriptionRemoved(String destination) {
+        AtomicInteger count = subscriptionsByPattern.get(destinationPattern(destination));
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    /**
+     * 记录一次广播
+     *
+     * @param subscribers  本地订阅者数，未知时为负数
+     * @param elapsedNanos 发布耗时(纳秒)
+     */
+    public void recordBroadcast(int subscribers, long elapsedNanos) {
+        broadcastLatency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (subscribers >= 0) {
+            fanOut.record(subscribers);
+        }
+    }
+
+    /**
+     * 将目的地归入固定的模式
+     * 如 /topic/room.42.messages -> /topic/room.{id}.messages，不在允许列表中的目的地返回 other
+     */
+    static String destinationPattern(String destination) {
+        if (destination == null) {
+            return OTHER_DESTINATION;
+        }
+        if (KNOWN_DESTINATIONS.contains(destination)) {
+            return destination;
+        }
+        if (GAME_ROOM_UPDATES.matcher(destination).matches()) {
+            return "/topic/rooms.updates.{game}";
+        }
+        if (ROOM_MESSAGES.matcher(destination).matches()) {
+            return "/topic/room.{id}.messages";
+        }
+        return OTHER_DESTINATION;
+    }
+
+    /**
+     * 判断目的地是否在允许列表中
+     *
+     * @param destination 目的地
+     * @return 是应用使用的目的地返回true
+     */
+    static boolean isKnownDestination(String destination) {
+        return !OTHER_DESTINATION.equals(destinationPattern(destination));
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        handlingStart.set(System.nanoTime());
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        Long start = handlingStart.get();
+        if (start == null) {
+            return;
+        }
+        handlingStart.remove();
+        handlingTimers.computeIfAbsent(handler.getClass().getSimpleName(), name ->
+                Timer.builder("stomp.inbound.handling")
+                        .description("入站消息在各处理器中的处理耗时")
+                        .tag("handler", name)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 统计出站帧数、字节数和写出耗时的会话
+     */
+    private class MeteredSession extends WebSocketSessionDecorator {
+
+        MeteredSession(WebSocketSession delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            long start = System.nanoTime();
+            try {
+                getDelegate().sendMessage(message);
+            } finally {
+                sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            framesOut.increment();
+            bytesOut.increment(message.getPayloadLength());
+        }
+    }
+}
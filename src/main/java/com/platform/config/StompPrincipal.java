@@ -0,0 +1,48 @@
+package com.platform.config;
+
+import java.security.Principal;
+import java.util.Objects;
+
+/**
+ * STOMP会话用户标识
+ * 在CONNECT阶段认证成功后绑定到WebSocket会话，
+ * 用于后续消息处理和用户专属目的地的路由。
+ * 名称为用户名，与用户专属目的地的解析保持一致；同时携带用户ID，
+ * 处理器需要用户ID时无需再查询数据库
+ */
+public final class StompPrincipal implements Principal {
+
+    private final Long userId;
+    private final String username;
+
+    public StompPrincipal(Long userId, String username) {
+        this.userId = userId;
+        this.username = username;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StompPrincipal)) return false;
+        return Objects.equals(username, ((StompPrincipal) o).username);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(username);
+    }
+
+    @Override
+    public String toString() {
+        return "StompPrincipal[" + userId + ":" + username + "]";
+    }
+}
@@ -0,0 +1,152 @@
+package com.platform.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订阅关注度跟踪拦截器
+ * <p>
+ * 在入站通道上统计每个目的地当前的订阅数，服务端据此跳过无人订阅的广播。
+ * 代理中继模式下其他节点的订阅无法在本地感知，始终视为有订阅者。
+ * 只统计允许列表中的目的地，客户端自行订阅的其他目的地不计数，避免统计表随任意目的地增长。
+ * 订阅变化同时记录到按目的地模式统计的订阅数指标，其他目的地归为 other
+ * </p>
+ */
+@Component
+public class SubscriptionInterestTracker implements ChannelInterceptor {
+
+    // 会话ID -> (订阅ID -> 目的地)
+    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>();
+    // 允许列表中的目的地 -> 订阅数
+    private final Map<String, Integer> subscriberCounts = new ConcurrentHashMap<>();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final WebSocketBrokerProperties brokerProperties;
+    private final StompMetrics stompMetrics;
+
+    @Autowired
+    public SubscriptionInterestTracker(WebSocketBrokerProperties brokerProperties, StompMetrics stompMetrics) {
+        this.brokerProperties = brokerProperties;
+        this.stompMetrics = stompMetrics;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (messageType == null || sessionId == null) {
+            return message;
+        }
+
+        switch (messageType) {
+            case SUBSCRIBE:
+                subscribe(sessionId, SimpMessageHeaderAccessor.getSubscriptionId(headers),
+                        SimpMessageHeaderAccessor.getDestination(headers));
+                break;
+            case UNSUBSCRIBE:
+                unsubscribe(sessionId, SimpMessageHeaderAccessor.getSubscriptionId(headers));
+                break;
+            case DISCONNECT:
+                removeSession(sessionId);
+                break;
+            default:
+                break;
+        }
+        return message;
+    }
+
+    /**
+     * 判断目的地是否可能有订阅者，并记录发布/跳过次数
+     *
+     * @param destination 目的地
+     * @return 需要发布返回true
+     */
+    public boolean shouldPublish(String destination) {
+        if (brokerProperties.isRelayMode() || subscriberCounts.containsKey(destination)) {
+            published.incrementAndGet();
+            return true;
+        }
+        skipped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 获取目的地在本节点的订阅者数
+     *
+     * @param destination 目的地
+     * @return 订阅者数，代理中继模式下无法得知时返回-1
+     */
+    public int getSubscriberCount(String destination) {
+        if (brokerProperties.isRelayMode()) {
+            return -1;
+        }
+        return subscriberCounts.getOrDefault(destination, 0);
+    }
+
+    /**
+     * 获取订阅统计信息
+     *
+     * @return 会话数、被订阅目的地数以及发布和跳过次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessionSubscriptions.size());
+        stats.put("destinations", subscriberCounts.size());
+        stats.put("published", published.get());
+        stats.put("skipped", skipped.get());
+        return stats;
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        if (subscriptionId == null || destination == null) {
+            return;
+        }
+        String previous = sessionSubscriptions
+                .computeIfAbsent(sessionId, key -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) {
+            decrement(previous);
+        }
+        if (StompMetrics.isKnownDestination(destination)) {
+            subscriberCounts.merge(destination, 1, Integer::sum);
+        }
+        stompMetrics.subscriptionAdded(destination);
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        Map<String, String> subscriptions = sessionSubscriptions.get(sessionId);
+        if (subscriptions == null || subscriptionId == null) {
+            return;
+        }
+        String destination = subscriptions.remove(subscriptionId);
+        if (destination != null) {
+            decrement(destination);
+        }
+    }
+
+    private void removeSession(String sessionId) {
+        Map<String, String> subscriptions = sessionSubscriptions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    private void decrement(String destination) {
+        subscriberCounts.computeIfPresent(destination, (key, count) -> count > 1 ? count - 1 : null);
+        stompMetrics.subscriptionRemoved(destination);
+    }
+}
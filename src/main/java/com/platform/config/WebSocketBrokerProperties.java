@@ -0,0 +1,75 @@
+package com.platform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * WebSocket消息代理配置属性类
+ * 支持单机内存代理和外部STOMP代理中继两种模式
+ */
+@Component
+@ConfigurationProperties(prefix = "websocket.broker")
+public class WebSocketBrokerProperties {
+
+    /**
+     * 代理模式：simple为单机内存代理，relay为STOMP代理中继
+     */
+    private String mode = "simple";
+
+    /**
+     * STOMP代理中继配置
+     */
+    private Relay relay = new Relay();
+
+    /**
+     * 嵌入式STOMP代理配置
+     */
+    private Embedded embedded = new Embedded();
+
+    public boolean isRelayMode() { return "relay".equalsIgnoreCase(mode); }
+
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+    public Relay getRelay() { return relay; }
+    public void setRelay(Relay relay) { this.relay = relay; }
+    public Embedded getEmbedded() { return embedded; }
+    public void setEmbedded(Embedded embedded) { this.embedded = embedded; }
+
+    public static class Relay {
+        private String host = "localhost";
+        private int port = 61613;
+        private String clientLogin = "guest";
+        private String clientPasscode = "guest";
+        private String systemLogin = "guest";
+        private String systemPasscode = "guest";
+        private String virtualHost;
+
+        public String getHost() { return host; }
+        public void setHost(String host) { this.host = host; }
+        public int getPort() { return port; }
+        public void setPort(int port) { this.port = port; }
+        public String getClientLogin() { return clientLogin; }
+        public void setClientLogin(String clientLogin) { this.clientLogin = clientLogin; }
+        public String getClientPasscode() { return clientPasscode; }
+        public void setClientPasscode(String clientPasscode) { this.clientPasscode = clientPasscode; }
+        public String getSystemLogin() { return systemLogin; }
+        public void setSystemLogin(String systemLogin) { this.systemLogin = systemLogin; }
+        public String getSystemPasscode() { return systemPasscode; }
+        public void setSystemPasscode(String systemPasscode) { this.systemPasscode = systemPasscode; }
+        public String getVirtualHost() { return virtualHost; }
+        public void setVirtualHost(String virtualHost) { this.virtualHost = virtualHost; }
+    }
+
+    public static class Embedded {
+        private boolean enabled = false;
+        private String bindAddress = "127.0.0.1";
+        private int port = 61613;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getBindAddress() { return bindAddress; }
+        public void setBindAddress(String bindAddress) { this.bindAddress = bindAddress; }
+        public int getPort() { return port; }
+        public void setPort(int port) { this.port = port; }
+    }
+}
@@ -0,0 +1,89 @@
+package com.platform.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebSocket消息通道线程池
+ * <p>
+ * 为客户端入站、客户端出站和代理通道分别创建独立的有界线程池，
+ * 避免大厅广播占满出站线程时拖慢入站处理和心跳。
+ * 通道线程池的生命周期由消息代理配置注册的同名Bean管理，
+ * 会话写出线程池不属于任何通道，由本类自行初始化和关闭
+ * </p>
+ */
+@Component
+public class WebSocketChannelExecutors {
+
+    private final MonitoredChannelExecutor inbound;
+    private final MonitoredChannelExecutor outbound;
+    private final MonitoredChannelExecutor broker;
+    private final MonitoredChannelExecutor writer;
+
+    @Autowired
+    public WebSocketChannelExecutors(WebSocketChannelProperties properties) {
+        boolean virtualThreads = properties.isVirtualThreads();
+        this.inbound = new MonitoredChannelExecutor("inbound", properties.getInbound(), virtualThreads);
+        this.outbound = new MonitoredChannelExecutor("outbound", properties.getOutbound(), virtualThreads);
+        this.broker = properties.getBroker().isEnabled()
+                ? new MonitoredChannelExecutor("broker", properties.getBroker(), virtualThreads)
+                : null;
+        this.writer = new MonitoredChannelExecutor("writer", properties.getWriter(), virtualThreads);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        writer.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    public MonitoredChannelExecutor getInbound() {
+        return inbound;
+    }
+
+    public MonitoredChannelExecutor getOutbound() {
+        return outbound;
+    }
+
+    /**
+     * @return 代理通道线程池，未启用时为null(同步发布)
+     */
+    public MonitoredChannelExecutor getBroker() {
+        return broker;
+    }
+
+    public MonitoredChannelExecutor getWriter() {
+        return writer;
+    }
+
+    /**
+     * 获取各通道线程池统计信息
+     *
+     * @return 通道名 -> 统计信息
+     */
+    public Map<String, Object> getStats() {
+        List<MonitoredChannelExecutor> executors = new ArrayList<>();
+        executors.add(inbound);
+        executors.add(outbound);
+        if (broker != null) {
+            executors.add(broker);
+        }
+        executors.add(writer);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (MonitoredChannelExecutor executor : executors) {
+            stats.put(executor.getChannelName(), executor.getStats());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,85 @@
+package com.platform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * WebSocket消息通道线程池配置属性类
+ * 分别配置客户端入站、客户端出站、代理通道以及会话写出的线程池
+ */
+@Component
+@ConfigurationProperties(prefix = "websocket.channel")
+public class WebSocketChannelProperties {
+
+    /**
+     * 执行器模式：platform为平台线程池，virtual为虚拟线程(需要JDK 21及以上)
+     */
+    private String executorMode = "platform";
+
+    /**
+     * 客户端入站通道(处理客户端发来的STOMP帧)
+     */
+    private Pool inbound = new Pool(8, 32, 10000);
+
+    /**
+     * 客户端出站通道(向客户端写出消息和心跳)
+     */
+    private Pool outbound = new Pool(16, 64, 20000);
+
+    /**
+     * 代理通道(服务端发布到代理的消息)
+     * 默认不启用线程池，保持同步发布以保证订阅登记与消息投递的先后顺序
+     */
+    private Pool broker = new Pool(4, 8, 10000, false);
+
+    /**
+     * 会话写出线程池(排空各会话的出站队列，写慢的会话只占用一个线程)
+     */
+    private Pool writer = new Pool(8, 32, 100000);
+
+    public boolean isVirtualThreads() { return "virtual".equalsIgnoreCase(executorMode); }
+
+    public String getExecutorMode() { return executorMode; }
+    public void setExecutorMode(String executorMode) { this.executorMode = executorMode; }
+    public Pool getInbound() { return inbound; }
+    public void setInbound(Pool inbound) { this.inbound = inbound; }
+    public Pool getOutbound() { return outbound; }
+    public void setOutbound(Pool outbound) { this.outbound = outbound; }
+    public Pool getBroker() { return broker; }
+    public void setBroker(Pool broker) { this.broker = broker; }
+    public Pool getWriter() { return writer; }
+    public void setWriter(Pool writer) { this.writer = writer; }
+
+    public static class Pool {
+        private boolean enabled = true;
+        private int corePoolSize;
+        private int maxPoolSize;
+        private int queueCapacity;
+        private int keepAliveSeconds = 60;
+
+        public Pool() {
+        }
+
+        public Pool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+            this(corePoolSize, maxPoolSize, queueCapacity, true);
+        }
+
+        public Pool(int corePoolSize, int maxPoolSize, int queueCapacity, boolean enabled) {
+            this.corePoolSize = corePoolSize;
+            this.maxPoolSize = maxPoolSize;
+            this.queueCapacity = queueCapacity;
+            this.enabled = enabled;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getCorePoolSize() { return corePoolSize; }
+        public void setCorePoolSize(int corePoolSize) { this.corePoolSize = corePoolSize; }
+        public int getMaxPoolSize() { return maxPoolSize; }
+        public void setMaxPoolSize(int maxPoolSize) { this.maxPoolSize = maxPoolSize; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public int getKeepAliveSeconds() { return keepAliveSeconds; }
+        public void setKeepAliveSeconds(int keepAliveSeconds) { this.keepAliveSeconds = keepAliveSeconds; }
+    }
+}
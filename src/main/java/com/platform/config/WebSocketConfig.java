@@ -1,9 +1,15 @@
 package com.platform.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
@@ -12,6 +18,7 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -25,6 +32,34 @@ import java.util.Map;
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final DirectMailboxInterceptor directMailboxInterceptor;
+    private final WebSocketBrokerProperties brokerProperties;
+    private final WebSocketChannelExecutors channelExecutors;
+    private final PayloadEncodingInterceptor payloadEncodingInterceptor;
+    private final SubscriptionInterestTracker subscriptionInterestTracker;
+    private final OutboundBackpressureManager outboundBackpressureManager;
+    private final StompMetrics stompMetrics;
+
+    @Autowired
+    public WebSocketConfig(StompAuthChannelInterceptor stompAuthChannelInterceptor,
+                           DirectMailboxInterceptor directMailboxInterceptor,
+                           WebSocketBrokerProperties brokerProperties,
+                           WebSocketChannelExecutors channelExecutors,
+                           PayloadEncodingInterceptor payloadEncodingInterceptor,
+                           SubscriptionInterestTracker subscriptionInterestTracker,
+                           OutboundBackpressureManager outboundBackpressureManager,
+                           StompMetrics stompMetrics) {
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+        this.directMailboxInterceptor = directMailboxInterceptor;
+        this.brokerProperties = brokerProperties;
+        this.channelExecutors = channelExecutors;
+        this.payloadEncodingInterceptor = payloadEncodingInterceptor;
+        this.subscriptionInterestTracker = subscriptionInterestTracker;
+        this.outboundBackpressureManager = outboundBackpressureManager;
+        this.stompMetrics = stompMetrics;
+    }
+
     /**
      * 配置STOMP端点
      * 客户端通过这些端点连接到WebSocket服务器
@@ -40,27 +75,90 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     /**
      * 配置消息代理
-     * 定义消息路由规则和目的地前缀
+     * 定义消息路由规则和目的地前缀。
+     * relay模式下订阅和广播由外部STOMP代理承担，多个平台节点可共享房间、大厅频道及用户专属目的地
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         // 客户端订阅前缀
-        registry.enableSimpleBroker("/topic", "/queue");
+        if (brokerProperties.isRelayMode()) {
+            WebSocketBrokerProperties.Relay relay = brokerProperties.getRelay();
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relay.getHost())
+                    .setRelayPort(relay.getPort())
+                    .setClientLogin(relay.getClientLogin())
+                    .setClientPasscode(relay.getClientPasscode())
+                    .setSystemLogin(relay.getSystemLogin())
+                    .setSystemPasscode(relay.getSystemPasscode())
+                    .setVirtualHost(relay.getVirtualHost())
+                    // 跨节点同步用户会话信息，并转发本节点无法解析的用户目的地
+                    .setUserRegistryBroadcast("/topic/simp-user-registry")
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination");
+        } else {
+            registry.enableSimpleBroker("/topic", "/queue");
+        }
+        if (channelExecutors.getBroker() != null) {
+            registry.configureBrokerChannel().taskExecutor(channelExecutors.getBroker());
+        }
         // 客户端发送消息前缀
         registry.setApplicationDestinationPrefixes("/app");
         // 用户专属消息前缀 (如 /user/queue/messages)
         registry.setUserDestinationPrefix("/user");
     }
 
+    /**
+     * 配置客户端入站通道
+     * 使用独立的有界线程池，在CONNECT时完成一次性用户认证并协商消息体编码，
+     * 统计各目的地的订阅数，订阅私信后投递离线信箱，并记录各处理器的处理耗时
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutors.getInbound());
+        registration.interceptors(stompAuthChannelInterceptor, payloadEncodingInterceptor,
+                subscriptionInterestTracker, directMailboxInterceptor, stompMetrics);
+    }
+
+    /**
+     * 配置客户端出站通道
+     * 使用独立的有界线程池，队列满时由发布线程直接写出，向广播源施加背压；
+     * 对协商了CBOR的会话转码消息体
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutors.getOutbound());
+        registration.interceptors(payloadEncodingInterceptor);
+    }
+
+    /**
+     * 配置消息转换器
+     * 在默认转换器基础上支持客户端发送 application/cbor 编码的消息体
+     */
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        MappingJackson2MessageConverter cborConverter =
+                new MappingJackson2MessageConverter(PayloadEncodingInterceptor.CBOR_MIME_TYPE);
+        cborConverter.setObjectMapper(new ObjectMapper(new CBORFactory()));
+        // 仅处理显式声明为CBOR的消息，服务端发布的消息仍由默认转换器编码为JSON
+        cborConverter.setStrictContentTypeMatch(true);
+        messageConverters.add(cborConverter);
+        return true;
+    }
+
     /**
      * 配置WebSocket传输参数
-     * 设置消息大小限制和超时时间
+     * 设置消息大小限制和超时时间。
+     * 启用会话出站队列后消息在队列中积压，发送超时和缓冲区限制仅在关闭出站队列时生效；
+     * 后注册的装饰器在外层，先拿到原始会话：编码协商需要看到原始会话类型，
+     * 指标统计包装原始会话以计量真实写出，出站队列再包装指标会话
      */
     @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registry) {
         registry.setMessageSizeLimit(128 * 1024)     // 消息大小限制为128KB
                 .setSendTimeLimit(15 * 1000)         // 发送超时15秒
-                .setSendBufferSizeLimit(512 * 1024); // 发送缓冲区大小512KB
+                .setSendBufferSizeLimit(512 * 1024)  // 发送缓冲区大小512KB
+                .addDecoratorFactory(outboundBackpressureManager::decorate)
+                .addDecoratorFactory(stompMetrics::decorate)
+                .addDecoratorFactory(payloadEncodingInterceptor::decorate);
     }
 
     /**
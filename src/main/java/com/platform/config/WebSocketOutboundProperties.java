@@ -0,0 +1,99 @@
+package com.platform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * WebSocket会话出站队列配置属性类
+ * 配置每个会话的出站队列上限、慢消费者判定阈值以及各类目的地的积压策略
+ */
+@Component
+@ConfigurationProperties(prefix = "websocket.outbound")
+public class WebSocketOutboundProperties {
+
+    /**
+     * 目的地积压策略
+     */
+    public enum Policy {
+        /** 可靠投递，不丢弃也不合并 */
+        RELIABLE,
+        /** 队列超限时优先丢弃最旧的消息 */
+        DROP_OLDEST,
+        /** 同一对象的未发送更新只保留最新一条 */
+        COALESCE
+    }
+
+    /**
+     * 是否启用会话出站队列
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单个会话最多排队的消息数
+     */
+    private int maxQueuedMessages = 1000;
+
+    /**
+     * 单个会话最多排队的字节数
+     */
+    private int maxQueuedBytes = 1024 * 1024;
+
+    /**
+     * 最旧的排队消息超过该时长(毫秒)仍未写出时断开会话
+     */
+    private long maxLagMillis = 10000;
+
+    /**
+     * 最旧的排队消息超过该时长(毫秒)时计为慢会话
+     */
+    private long slowThresholdMillis = 1000;
+
+    /**
+     * 目的地前缀 -> 积压策略，按最长前缀匹配，未匹配的目的地可靠投递
+     */
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    public WebSocketOutboundProperties() {
+        policies.put("/topic/lobby.messages", Policy.DROP_OLDEST);
+        policies.put("/topic/rooms.updates", Policy.COALESCE);
+        policies.put("/user/queue/room.detail", Policy.RELIABLE);
+    }
+
+    /**
+     * 按最长前缀匹配目的地的积压策略
+     *
+     * @param destination 目的地
+     * @return 积压策略
+     */
+    public Policy resolvePolicy(String destination) {
+        if (destination == null) {
+            return Policy.RELIABLE;
+        }
+        Policy policy = Policy.RELIABLE;
+        int matchedLength = -1;
+        for (Map.Entry<String, Policy> entry : policies.entrySet()) {
+            String prefix = entry.getKey();
+            if (destination.startsWith(prefix) && prefix.length() > matchedLength) {
+                policy = entry.getValue();
+                matchedLength = prefix.length();
+            }
+        }
+        return policy;
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public int getMaxQueuedMessages() { return maxQueuedMessages; }
+    public void setMaxQueuedMessages(int maxQueuedMessages) { this.maxQueuedMessages = maxQueuedMessages; }
+    public int getMaxQueuedBytes() { return maxQueuedBytes; }
+    public void setMaxQueuedBytes(int maxQueuedBytes) { this.maxQueuedBytes = maxQueuedBytes; }
+    public long getMaxLagMillis() { return maxLagMillis; }
+    public void setMaxLagMillis(long maxLagMillis) { this.maxLagMillis = maxLagMillis; }
+    public long getSlowThresholdMillis() { return slowThresholdMillis; }
+    public void setSlowThresholdMillis(long slowThresholdMillis) { this.slowThresholdMillis = slowThresholdMillis; }
+    public Map<String, Policy> getPolicies() { return policies; }
+    public void setPolicies(Map<String, Policy> policies) { this.policies = policies; }
+}
@@ -1,17 +1,21 @@
 package com.platform.controller;
 
+import com.platform.config.CurrentUser;
 import com.platform.entity.Room;
-import com.platform.entity.User;
+import com.platform.service.DirectMessageService;
 import com.platform.service.MessageService;
 import com.platform.service.RoomService;
+import com.platform.service.SessionUserCache.SessionUser;
 import com.platform.service.UserService;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 消息控制器
@@ -26,34 +30,39 @@ public class MessageController {
     private final RoomService roomService;
     private final UserService userService;
     private final MessageService messageService;
+    private final DirectMessageService directMessageService;
 
     @Autowired
-    public MessageController(RoomService roomService, UserService userService, MessageService messageService) {
+    public MessageController(RoomService roomService, UserService userService, MessageService messageService,
+                             DirectMessageService directMessageService) {
         this.roomService = roomService;
         this.userService = userService;
         this.messageService = messageService;
+        this.directMessageService = directMessageService;
     }
 
     /**
      * 发送大厅消息
      *
      * @param request 包含消息内容的请求体
-     * @param session 用户会话
+     * @param currentUser 当前登录用户
      * @return 发送结果
      */
     @PostMapping("/lobby")
-    public ResponseEntity<?> sendLobbyMessage(@RequestBody Map<String, String> request, HttpSession session) {
-        String username = getUsernameFromSession(session);
-        if (username == null) {
+    public ResponseEntity<?> sendLobbyMessage(@RequestBody Map<String, String> request, @CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
         }
+        String username = currentUser.getUsername();
 
         String message = request.get("message");
         if (message == null || message.trim().isEmpty()) {
             return ResponseEntity.badRequest().body(createErrorResponse("消息内容不能为空"));
         }
 
-        messageService.sendLobbyMessage(username, message);
+        if (!messageService.sendLobbyMessage(username, message)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(createErrorResponse("消息队列繁忙，请稍后重试"));
+        }
 
         Map<String, String> response = new HashMap<>();
         response.put("success", "消息已发送");
@@ -63,13 +72,12 @@ public class MessageController {
     /**
      * 获取大厅消息历史
      *
-     * @param session 用户会话
+     * @param currentUser 当前登录用户
      * @return 大厅消息历史记录
      */
     @GetMapping("/lobby/history")
-    public ResponseEntity<?> getLobbyMessageHistory(HttpSession session) {
-        String username = getUsernameFromSession(session);
-        if (username == null) {
+    public ResponseEntity<?> getLobbyMessageHistory(@CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
         }
 
@@ -81,17 +89,17 @@ public class MessageController {
      *
      * @param roomId 房间ID
      * @param request 包含消息内容的请求体
-     * @param session 用户会话
+     * @param currentUser 当前登录用户
      * @return 发送结果
      */
     @PostMapping("/room/{roomId}")
     public ResponseEntity<?> sendRoomMessage(@PathVariable Long roomId,
                                              @RequestBody Map<String, String> request,
-                                             HttpSession session) {
-        String username = getUsernameFromSession(session);
-        if (username == null) {
+                                             @CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
         }
+        String username = currentUser.getUsername();
 
         String message = request.get("message");
         if (message == null || message.trim().isEmpty()) {
@@ -104,7 +112,9 @@ public class MessageController {
             return ResponseEntity.badRequest().body(createErrorResponse("用户不在该房间内"));
         }
 
-        messageService.sendRoomMessage(roomId, username, message);
+        if (!messageService.sendRoomMessage(roomId, username, message)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(createErrorResponse("消息队列繁忙，请稍后重试"));
+        }
 
         Map<String, String> response = new HashMap<>();
         response.put("success", "消息已发送");
@@ -115,15 +125,15 @@ public class MessageController {
      * 获取房间消息历史
      *
      * @param roomId 房间ID
-     * @param session 用户会话
+     * @param currentUser 当前登录用户
      * @return 房间消息历史记录
      */
     @GetMapping("/room/{roomId}/history")
-    public ResponseEntity<?> getRoomMessageHistory(@PathVariable Long roomId, HttpSession session) {
-        String username = getUsernameFromSession(session);
-        if (username == null) {
+    public ResponseEntity<?> getRoomMessageHistory(@PathVariable Long roomId, @CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
         }
+        String username = currentUser.getUsername();
 
         // 检查用户是否在房间内
         Room room = roomService.getUserRoom(username);
@@ -135,16 +145,101 @@ public class MessageController {
     }
 
     /**
-     * 从会话中获取用户名
+     * 发送私信
+     * 接收者离线时暂存在其信箱，重新连接后投递；多节点部署时不保证离线消息送达
+     *
+     * @param recipient 接收者用户名
+     * @param request 包含消息内容的请求体
+     * @param currentUser 当前登录用户
+     * @return 发送结果
+     */
+    @PostMapping("/direct/{recipient}")
+    public ResponseEntity<?> sendDirectMessage(@PathVariable String recipient,
+                                               @RequestBody Map<String, String> request,
+                                               @CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
+        }
+        String username = currentUser.getUsername();
+
+        String message = request.get("message");
+        if (message == null || message.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body(createErrorResponse("消息内容不能为空"));
+        }
+
+        if (userService.findByUsername(recipient) == null) {
+            return ResponseEntity.badRequest().body(createErrorResponse("接收者不存在"));
+        }
+        if (recipient.equals(username)) {
+            return ResponseEntity.badRequest().body(createErrorResponse("不能给自己发送私信"));
+        }
+
+        boolean delivered = directMessageService.sendDirectMessage(username, recipient, message);
+
+        Map<String, String> response = new HashMap<>();
+        if (delivered) {
+            response.put("success", "消息已发送");
+        } else if (directMessageService.isOfflineDeliveryGuaranteed()) {
+            response.put("success", "对方不在线，消息将在其上线后送达");
+        } else {
+            response.put("success", "对方不在线，消息已暂存，对方上线后可能无法收到");
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 搜索大厅和房间消息历史
+     * 普通用户只能搜索大厅和当前所在房间的消息，聊天管理员可搜索大厅和所有房间
      *
-     * @param session HTTP会话
-     * @return 已登录且活跃的用户名，如果未登录则返回null
+     * @param q 关键词，支持中文
+     * @param room 频道过滤：lobby表示大厅，数字表示房间ID，为空则搜索大厅和所在房间(管理员为全部频道)
+     * @param sender 发送者过滤
+     * @param limit 最大返回条数
+     * @param currentUser 当前登录用户
+     * @return 按时间倒序排列的匹配消息
      */
-    private String getUsernameFromSession(HttpSession session) {
-        if (session == null) return null;
+    @GetMapping("/search")
+    public ResponseEntity<?> searchMessages(@RequestParam(required = false) String q,
+                                            @RequestParam(required = false) String room,
+                                            @RequestParam(required = false) String sender,
+                                            @RequestParam(defaultValue = "50") int limit,
+                                            @CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
+        }
+        String username = currentUser.getUsername();
+
+        if ((q == null || q.isBlank()) && (sender == null || sender.isBlank())) {
+            return ResponseEntity.badRequest().body(createErrorResponse("关键词和发送者不能同时为空"));
+        }
+
+        boolean moderator = messageService.isModerator(username);
+        Room userRoom = roomService.getUserRoom(username);
+        Set<Long> channels = new HashSet<>();
+        if (room == null || room.isBlank()) {
+            if (moderator) {
+                return ResponseEntity.ok(messageService.searchMessages(q, sender, null, limit));
+            }
+            channels.add(0L);
+            if (userRoom != null) {
+                channels.add(userRoom.getId());
+            }
+        } else if ("lobby".equalsIgnoreCase(room)) {
+            channels.add(0L);
+        } else {
+            long roomId;
+            try {
+                roomId = Long.parseLong(room);
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body(createErrorResponse("无效的房间参数"));
+            }
+            if (!moderator && (userRoom == null || userRoom.getId() != roomId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(createErrorResponse("用户不在该房间内"));
+            }
+            channels.add(roomId);
+        }
 
-        User user = userService.findBySessionId(session.getId());
-        return user != null && user.isActive() ? user.getUsername() : null;
+        return ResponseEntity.ok(messageService.searchMessages(q, sender, channels, limit));
     }
 
     /**
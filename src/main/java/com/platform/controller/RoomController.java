@@ -1,11 +1,12 @@
 package com.platform.controller;
 
+import com.platform.config.CurrentUser;
 import com.platform.entity.Room;
-import com.platform.entity.User;
+import com.platform.service.RoomEventJournal;
 import com.platform.service.RoomService;
-import com.platform.service.UserService;
-import jakarta.servlet.http.HttpSession;
+import com.platform.service.SessionUserCache.SessionUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,12 +24,12 @@ import java.util.Map;
 public class RoomController {
 
     private final RoomService roomService;
-    private final UserService userService;
+    private final RoomEventJournal roomEventJournal;
 
     @Autowired
-    public RoomController(RoomService roomService, UserService userService) {
+    public RoomController(RoomService roomService, RoomEventJournal roomEventJournal) {
         this.roomService = roomService;
-        this.userService = userService;
+        this.roomEventJournal = roomEventJournal;
     }
 
     /**
@@ -39,15 +40,42 @@ public class RoomController {
         return ResponseEntity.ok(roomService.getJoinableRooms());
     }
 
+    /**
+     * 获取游戏对应的房间更新主题
+     * 客户端浏览某个游戏的房间列表时订阅该主题，只接收该游戏的房间变化
+     */
+    @GetMapping("/updates-topic")
+    public ResponseEntity<?> getRoomUpdatesTopic(@RequestParam String gameName) {
+        Map<String, String> response = new HashMap<>();
+        response.put("gameName", gameName);
+        response.put("topic", RoomService.getRoomUpdatesTopic(gameName));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 按偏移量读取房间事件
+     * 消费者保存最后处理的偏移量，重启或断线后从该位置继续读取，
+     * 追上后可订阅 /topic/rooms.events 接收新事件
+     *
+     * @param after 上次处理的偏移量，从头读取时为0
+     * @param limit 每页条数
+     * @return 本页事件及下次读取使用的偏移量
+     */
+    @GetMapping("/events")
+    public ResponseEntity<?> getRoomEvents(@RequestParam(defaultValue = "0") long after,
+                                           @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(roomEventJournal.getPage(after, limit));
+    }
+
     /**
      * 获取用户当前所在房间
      */
     @GetMapping("/my-room")
-    public ResponseEntity<?> getUserRoom(HttpSession session) {
-        String username = getUsernameFromSession(session);
-        if (username == null) {
+    public ResponseEntity<?> getUserRoom(@CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
         }
+        String username = currentUser.getUsername();
 
         Room room = roomService.getUserRoom(username);
         if (room == null) {
@@ -74,11 +102,11 @@ public class RoomController {
      * 创建新房间
      */
     @PostMapping
-    public ResponseEntity<?> createRoom(@RequestBody Map<String, Object> request, HttpSession session) {
-        String username = getUsernameFromSession(session);
-        if (username == null) {
+    public ResponseEntity<?> createRoom(@RequestBody Map<String, Object> request, @CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
         }
+        String username = currentUser.getUsername();
 
         String roomName = (String) request.get("roomName");
         String gameName = (String) request.get("gameName");
@@ -104,11 +132,11 @@ public class RoomController {
      * 加入房间
      */
     @PostMapping("/{roomId}/join")
-    public ResponseEntity<?> joinRoom(@PathVariable Long roomId, HttpSession session) {
-        String username = getUsernameFromSession(session);
-        if (username == null) {
+    public ResponseEntity<?> joinRoom(@PathVariable Long roomId, @CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
         }
+        String username = currentUser.getUsername();
 
         if (roomId == null || roomId <= 0) {
             return ResponseEntity.badRequest().body(createErrorResponse("无效的房间ID"));
@@ -127,11 +155,11 @@ public class RoomController {
      * 退出房间
      */
     @PostMapping("/leave")
-    public ResponseEntity<?> leaveRoom(HttpSession session) {
-        String username = getUsernameFromSession(session);
-        if (username == null) {
+    public ResponseEntity<?> leaveRoom(@CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
         }
+        String username = currentUser.getUsername();
 
         boolean left = roomService.leaveRoom(username);
         if (!left) {
@@ -147,11 +175,11 @@ public class RoomController {
      * 开始游戏
      */
     @PostMapping("/{roomId}/start")
-    public ResponseEntity<?> startGame(@PathVariable Long roomId, HttpSession session) {
-        String username = getUsernameFromSession(session);
-        if (username == null) {
+    public ResponseEntity<?> startGame(@PathVariable Long roomId, @CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
         }
+        String username = currentUser.getUsername();
 
         boolean started = roomService.startGame(username, roomId);
         if (!started) {
@@ -166,11 +194,11 @@ public class RoomController {
      * 结束游戏
      */
     @PostMapping("/{roomId}/end")
-    public ResponseEntity<?> endGame(@PathVariable Long roomId, HttpSession session) {
-        String username = getUsernameFromSession(session);
-        if (username == null) {
+    public ResponseEntity<?> endGame(@PathVariable Long roomId, @CurrentUser SessionUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.badRequest().body(createErrorResponse("用户未登录"));
         }
+        String username = currentUser.getUsername();
 
         boolean ended = roomService.endGame(username, roomId);
         if (!ended) {
@@ -182,13 +210,11 @@ public class RoomController {
     }
 
     /**
-     * 从session中获取用户名
+     * 同一房间并发修改过多，重试次数用完后仍冲突
      */
-    private String getUsernameFromSession(HttpSession session) {
-        if (session == null) return null;
-
-        User user = userService.findBySessionId(session.getId());
-        return user != null && user.isActive() ? user.getUsername() : null;
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleRoomConflict(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorResponse("房间正忙，请稍后重试"));
     }
 
     /**
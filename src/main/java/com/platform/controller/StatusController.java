@@ -1,5 +1,19 @@
 package com.platform.controller;
 
+import com.platform.config.EntityCacheStatistics;
+import com.platform.config.OutboundBackpressureManager;
+import com.platform.config.PayloadEncodingInterceptor;
+import com.platform.config.ScheduledJobRunner;
+import com.platform.config.SubscriptionInterestTracker;
+import com.platform.config.WebSocketChannelExecutors;
+import com.platform.service.DirectMessageService;
+import com.platform.service.InactiveUserPurgeJob;
+import com.platform.service.MessageService;
+import com.platform.service.PresenceService;
+import com.platform.service.RoomEventRelay;
+import com.platform.service.SessionUserCache;
+import com.platform.service.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -13,6 +27,44 @@ import java.util.Map;
 @RequestMapping("/api/status")
 public class StatusController {
 
+    private final MessageService messageService;
+    private final DirectMessageService directMessageService;
+    private final WebSocketChannelExecutors channelExecutors;
+    private final PresenceService presenceService;
+    private final PayloadEncodingInterceptor payloadEncodingInterceptor;
+    private final SubscriptionInterestTracker subscriptionInterestTracker;
+    private final OutboundBackpressureManager outboundBackpressureManager;
+    private final SessionUserCache sessionUserCache;
+    private final InactiveUserPurgeJob inactiveUserPurgeJob;
+    private final EntityCacheStatistics entityCacheStatistics;
+    private final RoomEventRelay roomEventRelay;
+    private final ScheduledJobRunner scheduledJobRunner;
+    private final TimingWheel timingWheel;
+
+    @Autowired
+    public StatusController(MessageService messageService, DirectMessageService directMessageService,
+                            WebSocketChannelExecutors channelExecutors, PresenceService presenceService,
+                            PayloadEncodingInterceptor payloadEncodingInterceptor,
+                            SubscriptionInterestTracker subscriptionInterestTracker,
+                            OutboundBackpressureManager outboundBackpressureManager,
+                            SessionUserCache sessionUserCache, InactiveUserPurgeJob inactiveUserPurgeJob,
+                            EntityCacheStatistics entityCacheStatistics, RoomEventRelay roomEventRelay,
+                            ScheduledJobRunner scheduledJobRunner, TimingWheel timingWheel) {
+        this.messageService = messageService;
+        this.directMessageService = directMessageService;
+        this.channelExecutors = channelExecutors;
+        this.presenceService = presenceService;
+        this.payloadEncodingInterceptor = payloadEncodingInterceptor;
+        this.subscriptionInterestTracker = subscriptionInterestTracker;
+        this.outboundBackpressureManager = outboundBackpressureManager;
+        this.sessionUserCache = sessionUserCache;
+        this.inactiveUserPurgeJob = inactiveUserPurgeJob;
+        this.entityCacheStatistics = entityCacheStatistics;
+        this.roomEventRelay = roomEventRelay;
+        this.scheduledJobRunner = scheduledJobRunner;
+        this.timingWheel = timingWheel;
+    }
+
     /**
      * 服务器状态检查端点
      * 用于客户端测试服务器URL连接
@@ -25,4 +77,121 @@ public class StatusController {
         status.put("message", "服务器正常运行");
         return ResponseEntity.ok(status);
     }
-}
\ No newline at end of file
+
+    /**
+     * 聊天消息流水线状态
+     * 返回各阶段的队列深度、处理量和延迟
+     */
+    @GetMapping("/chat-pipeline")
+    public ResponseEntity<Map<String, Object>> getChatPipelineStatus() {
+        return ResponseEntity.ok(messageService.getPipelineStats());
+    }
+
+    /**
+     * 私信信箱状态
+     * 返回信箱数量、暂存消息总量和淘汰情况
+     */
+    @GetMapping("/direct-mailboxes")
+    public ResponseEntity<Map<String, Object>> getDirectMailboxStatus() {
+        return ResponseEntity.ok(directMessageService.getMailboxStats());
+    }
+
+    /**
+     * WebSocket消息通道线程池状态
+     * 返回各通道的活跃线程数、队列深度和任务排队/执行延迟
+     */
+    @GetMapping("/websocket-channels")
+    public ResponseEntity<Map<String, Object>> getWebSocketChannelStatus() {
+        return ResponseEntity.ok(channelExecutors.getStats());
+    }
+
+    /**
+     * 在线状态统计
+     * 返回在线用户数、连接会话数和等待建立连接的登录用户数
+     */
+    @GetMapping("/presence")
+    public ResponseEntity<Map<String, Object>> getPresenceStatus() {
+        return ResponseEntity.ok(presenceService.getStats());
+    }
+
+    /**
+     * 消息体编码统计
+     * 返回使用CBOR的会话数、转码次数及转码前后的字节数
+     */
+    @GetMapping("/payload-encoding")
+    public ResponseEntity<Map<String, Object>> getPayloadEncodingStatus() {
+        return ResponseEntity.ok(payloadEncodingInterceptor.getStats());
+    }
+
+    /**
+     * 订阅统计
+     * 返回被订阅的目的地数量以及按订阅情况发布和跳过的广播次数
+     */
+    @GetMapping("/subscriptions")
+    public ResponseEntity<Map<String, Object>> getSubscriptionStatus() {
+        return ResponseEntity.ok(subscriptionInterestTracker.getStats());
+    }
+
+    /**
+     * 会话出站队列统计
+     * 返回丢弃、合并和慢消费者断开次数，以及积压最久的会话
+     */
+    @GetMapping("/outbound")
+    public ResponseEntity<Map<String, Object>> getOutboundStatus() {
+        return ResponseEntity.ok(outboundBackpressureManager.getStats());
+    }
+
+    /**
+     * 会话用户缓存统计
+     * 返回缓存条目数以及命中和未命中次数
+     */
+    @GetMapping("/session-cache")
+    public ResponseEntity<Map<String, Object>> getSessionCacheStatus() {
+        return ResponseEntity.ok(sessionUserCache.getStats());
+    }
+
+    /**
+     * 不活跃用户清理进度
+     * 返回任务状态、断点游标、已删除数量和删除速率
+     */
+    @GetMapping("/user-purge")
+    public ResponseEntity<Map<String, Object>> getUserPurgeStatus() {
+        return ResponseEntity.ok(inactiveUserPurgeJob.getStats());
+    }
+
+    /**
+     * 二级缓存统计
+     * 返回各缓存区域和查询缓存的命中率
+     */
+    @GetMapping("/entity-cache")
+    public ResponseEntity<Map<String, Object>> getEntityCacheStatus() {
+        return ResponseEntity.ok(entityCacheStatistics.getStats());
+    }
+
+    /**
+     * 房间事件中继状态
+     * 返回已分配和已投递的偏移量及待分配事件数
+     */
+    @GetMapping("/room-events")
+    public ResponseEntity<Map<String, Object>> getRoomEventRelayStatus() {
+        return ResponseEntity.ok(roomEventRelay.getStats());
+    }
+
+    /**
+     * 定时任务状态
+     * 返回线程池使用情况及各任务最近一次的耗时、结果和下次执行时间
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> getScheduledJobStatus() {
+        return ResponseEntity.ok(scheduledJobRunner.getStats());
+    }
+
+    /**
+     * 时间轮状态
+     * 返回等待到期的定时器数，登记、顺延、取消和到期次数，以及最大触发延迟
+     */
+    @GetMapping("/timers")
+    public ResponseEntity<Map<String, Object>> getTimingWheelStatus() {
+        return ResponseEntity.ok(timingWheel.getStats());
+    }
+}
@@ -1,8 +1,11 @@
 package com.platform.controller;
 
+import com.platform.config.CurrentUser;
 import com.platform.entity.Room;
 import com.platform.entity.User;
+import com.platform.service.ActiveUserDirectory;
 import com.platform.service.RoomService;
+import com.platform.service.SessionUserCache.SessionUser;
 import com.platform.service.UserService;
 import com.platform.service.VirtualNetworkFactory;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,9 +14,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,13 +30,15 @@ public class UserController {
     private final UserService userService;
     private final RoomService roomService;
     private final VirtualNetworkFactory virtualNetworkFactory;
+    private final ActiveUserDirectory activeUserDirectory;
 
     @Autowired
     public UserController(UserService userService, RoomService roomService,
-                          VirtualNetworkFactory virtualNetworkFactory) {
+                          VirtualNetworkFactory virtualNetworkFactory, ActiveUserDirectory activeUserDirectory) {
         this.userService = userService;
         this.roomService = roomService;
         this.virtualNetworkFactory = virtualNetworkFactory;
+        this.activeUserDirectory = activeUserDirectory;
     }
 
     /**
@@ -108,41 +113,52 @@ public class UserController {
     /**
      * 获取当前用户信息
      *
-     * @param session HTTP会话对象
+     * @param currentUser 当前登录用户
      * @return 当前登录用户的信息
      */
     @GetMapping("/current")
-    public ResponseEntity<?> getCurrentUser(HttpSession session) {
-        User user = userService.findBySessionId(session.getId());
+    public ResponseEntity<?> getCurrentUser(@CurrentUser SessionUser currentUser) {
+        User user = currentUser != null ? userService.findById(currentUser.getUserId()) : null;
         if (user == null || !user.isActive()) {
             return ResponseEntity.notFound().build();
         }
-        userService.updateUserActivity(session.getId());
+        userService.recordActivity(user.getUsername());
 
         return ResponseEntity.ok(createUserInfoResponse(user));
     }
 
     /**
-     * 获取所有活跃用户列表
+     * 分页获取活跃用户列表
+     * 从内存目录按用户名顺序读取，只返回用户名、在线状态和所在房间。
+     * 响应带有ETag，目录未变化时对 If-None-Match 请求返回304
      *
-     * @return 当前在线的所有用户列表
+     * @param cursor 上一页返回的nextCursor，为空时从第一页开始
+     * @param limit 每页条数
+     * @param webRequest 用于ETag校验
+     * @return 本页用户及下一页游标
      */
     @GetMapping
-    public ResponseEntity<List<User>> getAllActiveUsers() {
-        return ResponseEntity.ok(userService.getAllActiveUsers());
+    public ResponseEntity<?> getActiveUsers(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "50") int limit,
+                                            WebRequest webRequest) {
+        String eTag = activeUserDirectory.getETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(activeUserDirectory.getPage(cursor, limit));
     }
 
     /**
      * 获取当前用户的网络连接信息
      * 包括虚拟IP、房间网络配置等
      *
-     * @param session HTTP会话对象
+     * @param currentUser 当前登录用户
      * @return 用户网络信息
      */
     @GetMapping("/network-info")
-    public ResponseEntity<?> getUserNetworkInfo(HttpSession session) {
-        // 通过会话ID查找用户
-        User user = userService.findBySessionId(session.getId());
+    public ResponseEntity<?> getUserNetworkInfo(@CurrentUser SessionUser currentUser) {
+        // 按用户ID读取最新的虚拟IP和房间信息
+        User user = currentUser != null ? userService.findById(currentUser.getUserId()) : null;
         if (user == null) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
@@ -1,13 +1,20 @@
 package com.platform.controller;
 
+import com.platform.entity.Room;
+import com.platform.service.DirectMessageService;
+import com.platform.service.MessageService;
+import com.platform.service.RoomService;
 import com.platform.service.UserService;
 import com.platform.service.WebSocketService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -19,11 +26,19 @@ public class WebSocketController {
 
     private final WebSocketService webSocketService;
     private final UserService userService;
+    private final MessageService messageService;
+    private final DirectMessageService directMessageService;
+    private final RoomService roomService;
 
     @Autowired
-    public WebSocketController(WebSocketService webSocketService, UserService userService) {
+    public WebSocketController(WebSocketService webSocketService, UserService userService,
+                               MessageService messageService, DirectMessageService directMessageService,
+                               RoomService roomService) {
         this.webSocketService = webSocketService;
         this.userService = userService;
+        this.messageService = messageService;
+        this.directMessageService = directMessageService;
+        this.roomService = roomService;
     }
 
     /**
@@ -41,7 +56,7 @@ public class WebSocketController {
         if (principal != null) {
             String username = principal.getName();
             // 更新用户活动时间
-            userService.updateUserActivity(username);
+            userService.recordActivity(username);
             // 发送心跳响应
             webSocketService.sendHeartbeatResponse(username);
         }
@@ -60,7 +75,132 @@ public class WebSocketController {
                                   Principal principal) {
         if (principal != null) {
             String username = principal.getName();
-            userService.updateUserActivity(username);
+            userService.recordActivity(username);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 通过STOMP发送大厅消息
+     * 用户身份在CONNECT时已确定，处理过程不访问数据库；
+     * 处理结果以回执形式发送到发送者的 /user/queue/chat.ack
+     *
+     * @param payload 消息数据，包含message和可选的clientId
+     * @param principal 当前用户
+     * @return 发送回执
+     */
+    @MessageMapping("/lobby.send")
+    @SendToUser(destinations = "/queue/chat.ack", broadcast = false)
+    public Map<String, Object> handleLobbyMessage(Map<String, Object> payload, Principal principal) {
+        Object clientId = payload.get("clientId");
+        if (principal == null) {
+            return createAck(clientId, false, "用户未登录");
+        }
+
+        String message = extractMessage(payload);
+        if (message == null) {
+            return createAck(clientId, false, "消息内容不能为空");
+        }
+
+        boolean accepted = messageService.sendLobbyMessage(principal.getName(), message);
+        return createAck(clientId, accepted, accepted ? null : "消息队列繁忙，请稍后重试");
+    }
+
+    /**
+     * 通过STOMP发送房间消息
+     * 与REST接口一样先检查用户是否在该房间内，不在时回执失败；
+     * 消息流水线中仍会再次校验，防止检查之后用户离开房间
+     *
+     * @param roomId 房间ID
+     * @param payload 消息数据，包含message和可选的clientId
+     * @param principal 当前用户
+     * @return 发送回执
+     */
+    @MessageMapping("/room.{roomId}.send")
+    @SendToUser(destinations = "/queue/chat.ack", broadcast = false)
+    public Map<String, Object> handleRoomMessage(@DestinationVariable Long roomId,
+                                                 Map<String, Object> payload,
+                                                 Principal principal) {
+        Object clientId = payload.get("clientId");
+        if (principal == null) {
+            return createAck(clientId, false, "用户未登录");
+        }
+
+        String message = extractMessage(payload);
+        if (message == null) {
+            return createAck(clientId, false, "消息内容不能为空");
+        }
+
+        // 检查用户是否在房间内
+        Room room = roomService.getUserRoom(principal.getName());
+        if (room == null || !room.getId().equals(roomId)) {
+            return createAck(clientId, false, "用户不在该房间内");
+        }
+
+        boolean accepted = messageService.sendRoomMessage(roomId, principal.getName(), message);
+        return createAck(clientId, accepted, accepted ? null : "消息队列繁忙，请稍后重试");
+    }
+
+    /**
+     * 通过STOMP发送私信
+     * 接收者离线时消息暂存在其信箱，重新订阅 /user/queue/direct 后投递；多节点部署时不保证离线消息送达
+     *
+     * @param payload 消息数据，包含to、message和可选的clientId
+     * @param principal 当前用户
+     * @return 发送回执
+     */
+    @MessageMapping("/direct.send")
+    @SendToUser(destinations = "/queue/chat.ack", broadcast = false)
+    public Map<String, Object> handleDirectMessage(Map<String, Object> payload, Principal principal) {
+        Object clientId = payload.get("clientId");
+        if (principal == null) {
+            return createAck(clientId, false, "用户未登录");
+        }
+
+        String message = extractMessage(payload);
+        if (message == null) {
+            return createAck(clientId, false, "消息内容不能为空");
+        }
+
+        Object recipient = payload.get("to");
+        if (!(recipient instanceof String) || userService.findByUsername((String) recipient) == null) {
+            return createAck(clientId, false, "接收者不存在");
+        }
+        if (recipient.equals(principal.getName())) {
+            return createAck(clientId, false, "不能给自己发送私信");
+        }
+
+        directMessageService.sendDirectMessage(principal.getName(), (String) recipient, message);
+        return createAck(clientId, true, null);
+    }
+
+    /**
+     * 提取消息内容，空消息返回null
+     */
+    private String extractMessage(Map<String, Object> payload) {
+        Object message = payload.get("message");
+        if (!(message instanceof String) || ((String) message).trim().isEmpty()) {
+            return null;
+        }
+        return (String) message;
+    }
+
+    /**
+     * 创建消息回执
+     *
+     * @param clientId 客户端消息标识，原样返回便于客户端匹配
+     * @param accepted 是否已接收
+     * @param error 错误信息
+     * @return 回执Map
+     */
+    private Map<String, Object> createAck(Object clientId, boolean accepted, String error) {
+        Map<String, Object> ack = new HashMap<>();
+        ack.put("type", "CHAT_ACK");
+        ack.put("clientId", clientId);
+        ack.put("accepted", accepted);
+        if (error != null) {
+            ack.put("error", error);
+        }
+        ack.put("timestamp", System.currentTimeMillis());
+        return ack;
+    }
+}
@@ -0,0 +1,82 @@
+package com.platform.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * 分批任务的断点记录
+ * 每批处理提交时同步更新，任务中断后从游标处继续
+ */
+@Entity
+@Table(name = "job_checkpoints")
+public class JobCheckpoint {
+
+    @Id
+    @Column(name = "job_name", length = 64)
+    private String jobName;
+
+    // 已处理的最大主键
+    @Column(name = "cursor_id")
+    private long cursorId;
+
+    // 本轮任务的截止时间
+    @Column(name = "cutoff_time")
+    private Instant cutoffTime;
+
+    @Column(name = "processed")
+    private long processed;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    public JobCheckpoint() {
+    }
+
+    public JobCheckpoint(String jobName, Instant cutoffTime) {
+        this.jobName = jobName;
+        this.cutoffTime = cutoffTime;
+        this.startedAt = Instant.now();
+        this.updatedAt = this.startedAt;
+    }
+
+    // Getters and setters
+    public String getJobName() {
+        return jobName;
+    }
+
+    public long getCursorId() {
+        return cursorId;
+    }
+
+    public void setCursorId(long cursorId) {
+        this.cursorId = cursorId;
+    }
+
+    public Instant getCutoffTime() {
+        return cutoffTime;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,13 +1,20 @@
 package com.platform.entity;
 
+import com.platform.config.EntityCacheProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.Instant;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "rooms")
+@Table(name = "rooms",
+        indexes = @Index(name = "idx_rooms_joinable", columnList = "room_status, game_name, player_count"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheProperties.ROOMS_REGION)
 public class Room {
 
     @Id
@@ -17,7 +24,7 @@ public class Room {
     @Column(nullable = false)
     private String name;
 
-    @Column(nullable = false)
+    @Column(name = "game_name", nullable = false)
     private String gameName;
 
     @Column(name = "max_players")
@@ -45,10 +52,22 @@ public class Room {
     @Column(name = "network_type")
     private String networkType;
 
-    @ElementCollection
-    @CollectionTable(name = "room_players", joinColumns = @JoinColumn(name = "room_id"))
-    @Column(name = "username")
-    private Set<String> players = new HashSet<>();
+    // 按加入顺序排列，房主离开时由最早加入的成员接任
+    @OneToMany(mappedBy = "room", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("joinedAt")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheProperties.ROOM_PLAYERS_REGION)
+    private Set<RoomMember> members = new LinkedHashSet<>();
+
+    // 成员数，随成员增减同步维护，可加入房间查询直接按该列过滤
+    @Column(name = "player_count", nullable = false)
+    @ColumnDefault("0")
+    private int playerCount;
+
+    // 乐观锁版本号，并发修改同一房间时后提交者失败，由调用方重新读取后重试
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private long version;
 
     public enum RoomStatus {
         WAITING,    // 等待玩家加入
@@ -68,7 +87,7 @@ public class Room {
         this.gameName = gameName;
         this.maxPlayers = maxPlayers;
         this.creatorUsername = creatorUsername;
-        this.players.add(creatorUsername);
+        addPlayer(creatorUsername);
         this.creationTime = Instant.now();
         this.status = RoomStatus.WAITING;
     }
@@ -154,25 +173,52 @@ public class Room {
         this.networkType = networkType;
     }
 
-    public Set<String> getPlayers() { return players;}
+    /**
+     * 获取房间内玩家的用户名，按加入顺序排列
+     */
+    public Set<String> getPlayers() {
+        Set<String> players = new LinkedHashSet<>();
+        for (RoomMember member : members) {
+            players.add(member.getUsername());
+        }
+        return Collections.unmodifiableSet(players);
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
 
     public void addPlayer(String username) {
-        this.players.add(username);
+        if (!containsPlayer(username)) {
+            this.members.add(new RoomMember(this, username));
+            this.playerCount = this.members.size();
+        }
     }
 
     public void removePlayer(String username) {
-        this.players.remove(username);
+        if (this.members.removeIf(member -> member.getUsername().equals(username))) {
+            this.playerCount = this.members.size();
+        }
     }
 
     public boolean isFull() {
-        return this.players.size() >= this.maxPlayers;
+        return this.playerCount >= this.maxPlayers;
     }
 
     public boolean isEmpty() {
-        return this.players.isEmpty();
+        return this.playerCount == 0;
     }
 
     public boolean containsPlayer(String username) {
-        return this.players.contains(username);
+        for (RoomMember member : members) {
+            if (member.getUsername().equals(username)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
\ No newline at end of file
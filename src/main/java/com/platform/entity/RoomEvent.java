@@ -0,0 +1,88 @@
+package com.platform.entity;
+
+import com.platform.enums.RoomEventType;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * 房间事件日志
+ * 与房间修改在同一事务中写入，只追加不修改。提交后由中继按提交顺序分配连续的偏移量，
+ * 消费者按偏移量读取和续读
+ */
+@Entity
+@Table(name = "room_events",
+        indexes = @Index(name = "idx_room_events_seq", columnList = "seq", unique = true))
+public class RoomEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 偏移量，中继分配前为空
+    @Column(name = "seq")
+    private Long seq;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "event_type", nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private RoomEventType type;
+
+    // 触发事件的用户，系统操作时为空
+    @Column(name = "username")
+    private String username;
+
+    // 事件发生后的房间状态(JSON)
+    @Lob
+    @Column(name = "payload")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public RoomEvent() {
+    }
+
+    public RoomEvent(Long roomId, RoomEventType type, String username, String payload) {
+        this.roomId = roomId;
+        this.type = type;
+        this.username = username;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public RoomEventType getType() {
+        return type;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,97 @@
+package com.platform.entity;
+
+import com.platform.config.EntityCacheProperties;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * 房间成员
+ * 每个用户同时只能在一个房间中，用户名上有唯一索引，按用户查找所在房间时走索引
+ */
+@Entity
+@Table(name = "room_players",
+        indexes = @Index(name = "idx_room_players_username", columnList = "username", unique = true))
+@IdClass(RoomMember.MemberId.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheProperties.ROOM_MEMBERS_REGION)
+public class RoomMember {
+
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_id")
+    private Room room;
+
+    @Id
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    @Column(name = "joined_at")
+    private Instant joinedAt;
+
+    public RoomMember() {
+    }
+
+    public RoomMember(Room room, String username) {
+        this.room = room;
+        this.username = username;
+        this.joinedAt = Instant.now();
+    }
+
+    public Room getRoom() {
+        return room;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Instant getJoinedAt() {
+        return joinedAt;
+    }
+
+    // 同一房间内按用户名区分成员
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RoomMember)) return false;
+        return Objects.equals(username, ((RoomMember) o).username);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(username);
+    }
+
+    /**
+     * 复合主键 (房间ID, 用户名)
+     */
+    public static class MemberId implements Serializable {
+        private Long room;
+        private String username;
+
+        public MemberId() {
+        }
+
+        public MemberId(Long room, String username) {
+            this.room = room;
+            this.username = username;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MemberId)) return false;
+            MemberId other = (MemberId) o;
+            return Objects.equals(room, other.room) && Objects.equals(username, other.username);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(room, username);
+        }
+    }
+}
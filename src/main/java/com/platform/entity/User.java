@@ -1,11 +1,15 @@
 package com.platform.entity;
 
+import com.platform.config.EntityCacheProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.Instant;
 
 @Entity
 @Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheProperties.USERS_REGION)
 public class User {
 
     @Id
@@ -0,0 +1,13 @@
+package com.platform.enums;
+
+/**
+ * 房间事件类型枚举
+ */
+public enum RoomEventType {
+    CREATED,    // 创建房间
+    JOINED,     // 玩家加入
+    LEFT,       // 玩家离开或被移出
+    STARTED,    // 游戏开始
+    ENDED,      // 游戏结束
+    DELETED     // 房间被删除
+}
@@ -0,0 +1,20 @@
+package com.platform.repository;
+
+import com.platform.entity.JobCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+
+    // 读取断点并加行锁(SELECT ... FOR UPDATE)，锁持有到事务结束，多个节点借此互斥
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM JobCheckpoint c WHERE c.jobName = :jobName")
+    Optional<JobCheckpoint> findByJobNameForUpdate(@Param("jobName") String jobName);
+}
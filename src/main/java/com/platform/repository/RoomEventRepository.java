@@ -0,0 +1,34 @@
+package com.platform.repository;
+
+import com.platform.entity.RoomEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RoomEventRepository extends JpaRepository<RoomEvent, Long> {
+
+    // 按写入顺序查找尚未分配偏移量的事件
+    List<RoomEvent> findBySeqIsNullOrderByIdAsc(Pageable pageable);
+
+    // 统计尚未分配偏移量的事件数
+    long countBySeqIsNull();
+
+    // 查找指定偏移量之后的事件
+    List<RoomEvent> findBySeqGreaterThanOrderBySeqAsc(long seq, Pageable pageable);
+
+    // 已分配的最大偏移量，没有事件时为0
+    @Query("SELECT COALESCE(MAX(e.seq), 0) FROM RoomEvent e")
+    long findMaxSeq();
+
+    // 删除已投递且早于截止时间的事件
+    @Modifying
+    @Query("DELETE FROM RoomEvent e WHERE e.seq <= :seq AND e.createdAt < :cutoff")
+    int deleteDeliveredBefore(@Param("seq") long seq, @Param("cutoff") Instant cutoff);
+}
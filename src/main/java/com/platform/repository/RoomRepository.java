@@ -1,11 +1,17 @@
 package com.platform.repository;
 
+import com.platform.config.EntityCacheProperties;
 import com.platform.entity.Room;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,21 +19,42 @@ import java.util.Optional;
 public interface RoomRepository extends JpaRepository<Room, Long> {
 
     // 查找包含指定用户的房间
-    @Query("SELECT r FROM Room r JOIN r.players p WHERE p = :username")
+    @Query("SELECT m.room FROM RoomMember m WHERE m.username = :username")
     List<Room> findByPlayerUsername(@Param("username") String username);
 
+    // 查找给定用户中仍在房间内的用户名
+    @Query("SELECT m.username FROM RoomMember m WHERE m.username IN :usernames")
+    List<String> findPlayersIn(@Param("usernames") Collection<String> usernames);
+
+    // 查找指定房间的成员用户名，不加载房间及成员集合
+    @Query("SELECT m.username FROM RoomMember m WHERE m.room.id = :roomId")
+    List<String> findPlayerUsernames(@Param("roomId") Long roomId);
+
+    // 查找所有房间成员，每行为 [房间ID, 用户名]
+    @Query("SELECT m.room.id, m.username FROM RoomMember m")
+    List<Object[]> findAllRoomPlayers();
+
     // 查找指定房间名称的房间
     Optional<Room> findByName(String name);
 
     // 查找可以加入的房间(等待状态且未满)
-    @Query("SELECT r FROM Room r WHERE r.status = 'WAITING' AND SIZE(r.players) < r.maxPlayers")
+    @Query("SELECT r FROM Room r WHERE r.status = 'WAITING' AND r.playerCount < r.maxPlayers")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = EntityCacheProperties.JOINABLE_ROOMS_REGION)})
     List<Room> findJoinableRooms();
 
-    // 修改查询语句中的字段名
-    @Query("SELECT r FROM Room r WHERE r.gameName = :gameName AND r.status = 'WAITING' AND SIZE(r.players) < r.maxPlayers")
+    // 查找指定游戏可以加入的房间
+    @Query("SELECT r FROM Room r WHERE r.status = 'WAITING' AND r.gameName = :gameName AND r.playerCount < r.maxPlayers")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = EntityCacheProperties.JOINABLE_ROOMS_REGION)})
     List<Room> findJoinableRoomsByGameName(@Param("gameName") String gameName);
 
     // 查找没有玩家的房间
-    @Query("SELECT r FROM Room r WHERE r.players IS EMPTY")
+    @Query("SELECT r FROM Room r WHERE r.playerCount = 0")
     List<Room> findEmptyRooms();
+
+    // 批量删除指定房间中仍然没有玩家的房间
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Room r WHERE r.id IN :ids AND r.playerCount = 0")
+    int deleteEmptyRoomsByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
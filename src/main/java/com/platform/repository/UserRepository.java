@@ -1,20 +1,29 @@
 package com.platform.repository;
 
+import com.platform.config.EntityCacheProperties;
 import com.platform.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = EntityCacheProperties.USER_LOOKUP_REGION)})
     User findByUsername(String username);
 
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = EntityCacheProperties.USER_LOOKUP_REGION)})
     User findBySessionId(String sessionId);
 
     boolean existsByUsername(String username);
@@ -22,8 +31,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.active = true")
     List<User> findAllActiveUsers();
 
+    long countByActiveTrue();
+
+    @Query("SELECT COUNT(u) FROM User u WHERE u.lastActiveTime < :timestamp AND u.id > :afterId")
+    long countInactiveUsers(@Param("timestamp") Instant timestamp, @Param("afterId") long afterId);
+
+    // 按主键顺序分批查找不活跃用户
+    @Query("SELECT u.id FROM User u WHERE u.lastActiveTime < :timestamp AND u.id > :afterId ORDER BY u.id")
+    List<Long> findInactiveUserIds(@Param("timestamp") Instant timestamp, @Param("afterId") long afterId,
+                                   Pageable pageable);
+
+    @Query("SELECT u.username FROM User u WHERE u.id IN :ids")
+    List<String> findUsernamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // 删除前再次校验活动时间，查找之后重新活跃的用户不会被删除
     @Modifying
-    @Transactional
-    @Query("DELETE FROM User u WHERE u.lastActiveTime < :timestamp")
-    int deleteInactiveUsers(@Param("timestamp") Instant timestamp);
+    @Query("DELETE FROM User u WHERE u.id IN :ids AND u.lastActiveTime < :timestamp")
+    int deleteInactiveUsersByIdIn(@Param("ids") Collection<Long> ids, @Param("timestamp") Instant timestamp);
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+package com.platform.service;
+
+import com.platform.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 活跃用户目录
+ * <p>
+ * 在内存中维护 用户名 -> (是否在线, 所在房间ID) 的精简视图，按用户名排序，
+ * 供用户列表接口按游标分页读取，无需查询数据库。在线或仍在房间中的用户视为活跃。
+ * 在线状态由 PresenceService、房间归属由 RoomService 在变化时推送；
+ * 每次变化递增版本号，版本号作为列表的ETag，客户端可据此廉价地重新验证
+ * </p>
+ */
+@Service
+public class ActiveUserDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveUserDirectory.class);
+
+    /**
+     * 目录条目，不可变
+     */
+    public static final class DirectoryEntry {
+        private final String username;
+        private final boolean online;
+        private final long roomId;
+
+        DirectoryEntry(String username, boolean online, long roomId) {
+            this.username = username;
+            this.online = online;
+            this.roomId = roomId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public boolean isOnline() {
+            return online;
+        }
+
+        public long getRoomId() {
+            return roomId;
+        }
+    }
+
+    @Value("${user.directory.max-page-size:200}")
+    private int maxPageSize;
+
+    private final ConcurrentSkipListMap<String, DirectoryEntry> entries = new ConcurrentSkipListMap<>();
+    private final AtomicLong version = new AtomicLong();
+    // 区分不同的进程实例，避免重启后版本号重新计数与客户端缓存的ETag冲突
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final RoomRepository roomRepository;
+
+    @Autowired
+    public ActiveUserDirectory(RoomRepository roomRepository) {
+        this.roomRepository = roomRepository;
+    }
+
+    /**
+     * 启动完成后从数据库载入房间成员
+     * 重启前留在房间中的用户在断线宽限期内仍视为活跃
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRoomMembers() {
+        int loaded = 0;
+        for (Object[] row : roomRepository.findAllRoomPlayers()) {
+            Long roomId = (Long) row[0];
+            String username = (String) row[1];
+            if (entries.putIfAbsent(username, new DirectoryEntry(username, false, roomId)) == null) {
+                loaded++;
+            }
+        }
+        if (loaded > 0) {
+            version.incrementAndGet();
+            logger.info("活跃用户目录载入 {} 名房间成员", loaded);
+        }
+    }
+
+    /**
+     * 更新用户在线状态
+     *
+     * @param username 用户名
+     * @param online 是否在线
+     */
+    public void setOnline(String username, boolean online) {
+        update(username, online, null);
+    }
+
+    /**
+     * 更新用户所在房间
+     *
+     * @param username 用户名
+     * @param roomId 房间ID，0表示不在房间中
+     */
+    public void setRoom(String username, long roomId) {
+        update(username, null, roomId);
+    }
+
+    /**
+     * 获取用户所在房间
+     *
+     * @param username 用户名
+     * @return 房间ID，不在房间中时返回0
+     */
+    public long getRoomId(String username) {
+        DirectoryEntry entry = entries.get(username);
+        return entry != null ? entry.getRoomId() : 0L;
+    }
+
+    /**
+     * 按用户名顺序读取一页活跃用户
+     *
+     * @param cursor 上一页最后一个用户名，为空时从头读取
+     * @param limit 每页条数，超出上限时按上限截断
+     * @return 本页用户及下一页游标，没有更多数据时游标为null
+     */
+    public Map<String, Object> getPage(String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        ConcurrentNavigableMap<String, DirectoryEntry> view = cursor == null || cursor.isEmpty()
+                ? entries
+                : entries.tailMap(cursor, false);
+
+        List<Map<String, Object>> users = new ArrayList<>(Math.min(pageSize, 64));
+        String nextCursor = null;
+        for (DirectoryEntry entry : view.values()) {
+            if (users.size() == pageSize) {
+                nextCursor = users.get(pageSize - 1).get("username").toString();
+                break;
+            }
+            Map<String, Object> user = new LinkedHashMap<>();
+            user.put("username", entry.getUsername());
+            user.put("online", entry.isOnline());
+            user.put("roomId", entry.getRoomId());
+            users.add(user);
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("users", users);
+        page.put("nextCursor", nextCursor);
+        return page;
+    }
+
+    /**
+     * 获取目录当前版本对应的ETag
+     * 目录任何变化都会使ETag改变
+     *
+     * @return 带引号的ETag值
+     */
+    public String getETag() {
+        return "\"" + instanceId + "-" + version.get() + "\"";
+    }
+
+    private void update(String username, Boolean online, Long roomId) {
+        if (username == null) {
+            return;
+        }
+        boolean[] changed = new boolean[1];
+        entries.compute(username, (key, current) -> {
+            boolean newOnline = online != null ? online : current != null && current.isOnline();
+            long newRoomId = roomId != null ? roomId : current != null ? current.getRoomId() : 0L;
+            changed[0] = current == null
+                    ? newOnline || newRoomId != 0
+                    : current.isOnline() != newOnline || current.getRoomId() != newRoomId;
+            if (!changed[0]) {
+                return current;
+            }
+            // 离线且不在房间中的用户不再视为活跃
+            return newOnline || newRoomId != 0 ? new DirectoryEntry(key, newOnline, newRoomId) : null;
+        });
+        if (changed[0]) {
+            version.incrementAndGet();
+        }
+    }
+}
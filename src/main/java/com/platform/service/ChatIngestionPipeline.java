@@ -0,0 +1,325 @@
+package com.platform.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 聊天消息接入流水线
+ * <p>
+ * 将聊天消息的处理从请求线程中剥离，分为三个阶段：
+ * 校验过滤 -> 排序并写入历史 -> 广播分发。
+ * 入口是有界的多生产者单消费者队列，每个阶段由一个专用线程批量消费，
+ * 阶段之间通过有界队列衔接，下游拥塞时自然向上游施加背压
+ * </p>
+ */
+public class ChatIngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatIngestionPipeline.class);
+
+    private final List<Stage> stages = new ArrayList<>();
+    private final int batchSize;
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private volatile boolean running;
+    // 停止时先拒绝新消息，待队列中的消息处理完毕后再停止各阶段线程
+    private volatile boolean accepting;
+
+    /**
+     * @param queueCapacity 每个阶段的队列容量
+     * @param batchSize     每批最多处理的消息数
+     * @param validator     校验阶段，未通过校验的消息将被丢弃
+     * @param appender      排序并写入历史阶段，返回false的消息将被丢弃
+     * @param publisher     广播分发阶段
+     */
+    public ChatIngestionPipeline(int queueCapacity, int batchSize,
+                                 BatchFilter validator,
+                                 Predicate<ChatEnvelope> appender,
+                                 Consumer<ChatEnvelope> publisher) {
+        this.batchSize = batchSize;
+        Stage fanout = new Stage("fanout", queueCapacity, passIf(envelope -> {
+            publisher.accept(envelope);
+            return true;
+        }), null);
+        Stage append = new Stage("append", queueCapacity, passIf(appender), fanout);
+        Stage validate = new Stage("validate", queueCapacity, validator, append);
+        stages.add(validate);
+        stages.add(append);
+        stages.add(fanout);
+    }
+
+    /**
+     * 启动各阶段处理线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        accepting = true;
+        for (Stage stage : stages) {
+            Thread thread = new Thread(stage::runLoop, "chat-" + stage.name);
+            thread.setDaemon(true);
+            stage.thread = thread;
+            thread.start();
+        }
+        logger.info("聊天消息接入流水线已启动，阶段数: {}, 批大小: {}", stages.size(), batchSize);
+    }
+
+    /**
+     * 停止流水线
+     * 先拒绝新消息，等待各阶段队列中的消息处理完毕(最多等待drainTimeoutMillis)，再停止各阶段线程，
+     * 超时仍未处理的消息被丢弃并记录数量
+     *
+     * @param drainTimeoutMillis 等待队列排空的最长时间(毫秒)
+     */
+    public synchronized void stop(long drainTimeoutMillis) {
+        accepting = false;
+        long deadline = System.currentTimeMillis() + drainTimeoutMillis;
+        try {
+            while (running && getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        running = false;
+        for (Stage stage : stages) {
+            if (stage.thread != null) {
+                stage.thread.interrupt();
+            }
+        }
+        int dropped = getPendingCount();
+        if (dropped > 0) {
+            logger.warn("聊天消息接入流水线已停止，{} 条未处理的消息被丢弃", dropped);
+        } else {
+            logger.info("聊天消息接入流水线已停止");
+        }
+    }
+
+    /**
+     * 提交消息到流水线入口
+     * 仅入队即返回，队列已满时立即拒绝
+     *
+     * @param envelope 消息封装
+     * @return 是否成功入队
+     */
+    public boolean submit(ChatEnvelope envelope) {
+        Stage entry = stages.get(0);
+        envelope.stageEnqueuedNanos = System.nanoTime();
+        if (!accepting || !entry.queue.offer(envelope)) {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 获取流水线各阶段统计信息
+     *
+     * @return 包含队列深度、处理量和延迟的统计Map
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running);
+        stats.put("rejected", rejectedCount.get());
+        List<Map<String, Object>> stageStats = new ArrayList<>();
+        for (Stage stage : stages) {
+            stageStats.add(stage.getStats());
+        }
+        stats.put("stages", stageStats);
+        return stats;
+    }
+
+    /**
+     * 获取各阶段当前队列深度
+     *
+     * @return 阶段名 -> 队列深度
+     */
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (Stage stage : stages) {
+            depths.put(stage.name, stage.queue.size());
+        }
+        return depths;
+    }
+
+    /**
+     * 各阶段队列中尚未处理的消息总数
+     */
+    private int getPendingCount() {
+        int pending = 0;
+        for (Stage stage : stages) {
+            pending += stage.queue.size();
+        }
+        return pending;
+    }
+
+    /**
+     * 将逐条处理的阶段包装为批处理，处理成功且返回true的消息传递到下一阶段
+     */
+    private static BatchFilter passIf(Predicate<ChatEnvelope> handler) {
+        return batch -> {
+            List<ChatEnvelope> passed = new ArrayList<>(batch.size());
+            for (ChatEnvelope envelope : batch) {
+                try {
+                    if (handler.test(envelope)) {
+                        passed.add(envelope);
+                    }
+                } catch (Exception e) {
+                    logger.error("处理来自 {} 的聊天消息失败: {}", envelope.getSender(), e.getMessage(), e);
+                }
+            }
+            return passed;
+        };
+    }
+
+    /**
+     * 批量校验接口
+     * 返回通过校验的消息，其余消息将被丢弃
+     */
+    @FunctionalInterface
+    public interface BatchFilter {
+        List<ChatEnvelope> filter(List<ChatEnvelope> batch);
+    }
+
+    /**
+     * 流水线阶段
+     */
+    private final class Stage {
+        private final String name;
+        private final BlockingQueue<ChatEnvelope> queue;
+        private final BatchFilter handler;
+        private final Stage next;
+        private volatile Thread thread;
+
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder totalLatencyNanos = new LongAdder();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        private final AtomicLong lastLatencyNanos = new AtomicLong();
+
+        private Stage(String name, int capacity, BatchFilter handler, Stage next) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.handler = handler;
+            this.next = next;
+        }
+
+        private void runLoop() {
+            List<ChatEnvelope> batch = new ArrayList<>(batchSize);
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, batchSize - 1);
+                    processBatch(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    // 单批异常不应终止阶段线程
+                    logger.error("聊天流水线阶段 {} 处理失败: {}", name, e.getMessage(), e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void processBatch(List<ChatEnvelope> batch) throws InterruptedException {
+            List<ChatEnvelope> passed = handler.filter(batch);
+            long now = System.nanoTime();
+
+            for (ChatEnvelope envelope : batch) {
+                recordLatency(now - envelope.stageEnqueuedNanos);
+            }
+            processed.add(batch.size());
+            dropped.add(batch.size() - passed.size());
+
+            if (next != null) {
+                for (ChatEnvelope envelope : passed) {
+                    envelope.stageEnqueuedNanos = System.nanoTime();
+                    next.queue.put(envelope);
+                }
+            }
+        }
+
+        private void recordLatency(long latencyNanos) {
+            totalLatencyNanos.add(latencyNanos);
+            lastLatencyNanos.set(latencyNanos);
+            maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        }
+
+        private Map<String, Object> getStats() {
+            long count = processed.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("stage", name);
+            stats.put("queueDepth", queue.size());
+            stats.put("queueCapacity", queue.size() + queue.remainingCapacity());
+            stats.put("processed", count);
+            stats.put("dropped", dropped.sum());
+            stats.put("avgLatencyMicros", count == 0 ? 0 : totalLatencyNanos.sum() / count / 1000);
+            stats.put("lastLatencyMicros", lastLatencyNanos.get() / 1000);
+            stats.put("maxLatencyMicros", maxLatencyNanos.get() / 1000);
+            return stats;
+        }
+    }
+
+    /**
+     * 流水线中流转的聊天消息
+     */
+    public static final class ChatEnvelope {
+        private final Long roomId;
+        private final String sender;
+        private final String message;
+        private final long receivedAt;
+        private volatile long stageEnqueuedNanos;
+        private Map<String, Object> payload;
+
+        /**
+         * @param roomId  房间ID，大厅消息为null
+         * @param sender  发送者用户名
+         * @param message 消息内容
+         */
+        public ChatEnvelope(Long roomId, String sender, String message) {
+            this.roomId = roomId;
+            this.sender = sender;
+            this.message = message;
+            this.receivedAt = System.currentTimeMillis();
+        }
+
+        public Long getRoomId() {
+            return roomId;
+        }
+
+        public boolean isLobby() {
+            return roomId == null;
+        }
+
+        public String getSender() {
+            return sender;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getReceivedAt() {
+            return receivedAt;
+        }
+
+        public Map<String, Object> getPayload() {
+            return payload;
+        }
+
+        public void setPayload(Map<String, Object> payload) {
+            this.payload = payload;
+        }
+    }
+}
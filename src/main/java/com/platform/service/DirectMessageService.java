@@ -0,0 +1,186 @@
+package com.platform.service;
+
+import com.platform.config.WebSocketBrokerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 私信服务
+ * <p>
+ * 用户之间的私信通过 /user/queue/direct 投递。接收者不在线或正在重连时，
+ * 消息暂存在其内存信箱中，待其重新订阅后一次性投递。
+ * 每个信箱有容量上限(超出时丢弃最旧消息)，所有信箱的消息总量也有上限，
+ * 超出时按最近最少使用顺序淘汰空闲信箱。
+ * 信箱只保存在接收消息的节点内存中：relay模式(多节点)下接收者重新连接到其他节点时收不到暂存的消息，
+ * 因此此时不保证离线消息送达，见 {@link #isOfflineDeliveryGuaranteed()}
+ * </p>
+ */
+@Service
+public class DirectMessageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectMessageService.class);
+
+    public static final String DIRECT_DESTINATION = "/queue/direct";
+    public static final String USER_DIRECT_DESTINATION = "/user" + DIRECT_DESTINATION;
+
+    @Value("${chat.direct.mailbox-size:100}")
+    private int mailboxSize;
+
+    @Value("${chat.direct.max-total-messages:50000}")
+    private int maxTotalMessages;
+
+    // 按访问顺序排列，最久未访问的信箱位于头部
+    private final LinkedHashMap<String, Deque<Map<String, Object>>> mailboxes = new LinkedHashMap<>(16, 0.75f, true);
+    private int totalMessages;
+    private long evictedMailboxes;
+    private long droppedMessages;
+
+    private final WebSocketService webSocketService;
+    private final SimpUserRegistry simpUserRegistry;
+    private final WebSocketBrokerProperties brokerProperties;
+
+    @Autowired
+    public DirectMessageService(WebSocketService webSocketService, SimpUserRegistry simpUserRegistry,
+                                WebSocketBrokerProperties brokerProperties) {
+        this.webSocketService = webSocketService;
+        this.simpUserRegistry = simpUserRegistry;
+        this.brokerProperties = brokerProperties;
+    }
+
+    /**
+     * 发送私信
+     * 接收者在线时立即投递，否则存入其信箱
+     *
+     * @param sender    发送者用户名
+     * @param recipient 接收者用户名
+     * @param message   消息内容
+     * @return 是否已立即投递
+     */
+    public boolean sendDirectMessage(String sender, String recipient, String message) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", "DIRECT_MESSAGE");
+        payload.put("sender", sender);
+        payload.put("recipient", recipient);
+        payload.put("message", message);
+        payload.put("timestamp", System.currentTimeMillis());
+
+        if (isSubscribed(recipient)) {
+            webSocketService.sendMessageToUser(recipient, DIRECT_DESTINATION, payload);
+            return true;
+        }
+
+        enqueue(recipient, payload);
+        // 接收者可能在入队期间完成订阅，再次检查以免消息滞留
+        if (isSubscribed(recipient)) {
+            deliverMailbox(recipient);
+        }
+        return false;
+    }
+
+    /**
+     * 判断暂存到信箱的离线消息是否保证送达
+     * 单节点部署时接收者总会连接到本节点；relay模式下接收者可能连接到其他节点，信箱中的消息无法投递
+     *
+     * @return 单节点部署时返回true
+     */
+    public boolean isOfflineDeliveryGuaranteed() {
+        return !brokerProperties.isRelayMode();
+    }
+
+    /**
+     * 投递并清空用户信箱
+     * 在用户订阅私信目的地完成后调用
+     *
+     * @param username 用户名
+     * @return 投递的消息数量
+     */
+    public int deliverMailbox(String username) {
+        List<Map<String, Object>> pending = drain(username);
+        for (Map<String, Object> payload : pending) {
+            webSocketService.sendMessageToUser(username, DIRECT_DESTINATION, payload);
+        }
+        if (!pending.isEmpty()) {
+            logger.debug("已向用户 {} 投递 {} 条离线私信", username, pending.size());
+        }
+        return pending.size();
+    }
+
+    /**
+     * 获取信箱统计信息
+     *
+     * @return 信箱数量、消息总量和淘汰情况
+     */
+    public synchronized Map<String, Object> getMailboxStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mailboxes", mailboxes.size());
+        stats.put("totalMessages", totalMessages);
+        stats.put("maxTotalMessages", maxTotalMessages);
+        stats.put("evictedMailboxes", evictedMailboxes);
+        stats.put("droppedMessages", droppedMessages);
+        return stats;
+    }
+
+    /**
+     * 消息存入信箱，超出单信箱容量时丢弃最旧消息，
+     * 超出全局容量时淘汰最久未访问的其他信箱
+     */
+    private synchronized void enqueue(String recipient, Map<String, Object> payload) {
+        Deque<Map<String, Object>> mailbox = mailboxes.computeIfAbsent(recipient, k -> new ArrayDeque<>());
+        mailbox.addLast(payload);
+        totalMessages++;
+
+        if (mailbox.size() > mailboxSize) {
+            mailbox.removeFirst();
+            totalMessages--;
+            droppedMessages++;
+        }
+
+        Iterator<Map.Entry<String, Deque<Map<String, Object>>>> iterator = mailboxes.entrySet().iterator();
+        while (totalMessages > maxTotalMessages && iterator.hasNext()) {
+            Map.Entry<String, Deque<Map<String, Object>>> eldest = iterator.next();
+            if (eldest.getKey().equals(recipient)) {
+                continue;
+            }
+            totalMessages -= eldest.getValue().size();
+            droppedMessages += eldest.getValue().size();
+            evictedMailboxes++;
+            iterator.remove();
+            logger.debug("私信信箱总量超限，淘汰用户 {} 的信箱", eldest.getKey());
+        }
+    }
+
+    private synchronized List<Map<String, Object>> drain(String username) {
+        Deque<Map<String, Object>> mailbox = mailboxes.remove(username);
+        if (mailbox == null) {
+            return Collections.emptyList();
+        }
+        totalMessages -= mailbox.size();
+        return new ArrayList<>(mailbox);
+    }
+
+    /**
+     * 判断用户是否有会话订阅了私信目的地
+     */
+    private boolean isSubscribed(String username) {
+        SimpUser user = simpUserRegistry.getUser(username);
+        if (user == null) {
+            return false;
+        }
+        for (SimpSession session : user.getSessions()) {
+            boolean subscribed = session.getSubscriptions().stream()
+                    .anyMatch(subscription -> USER_DIRECT_DESTINATION.equals(subscription.getDestination()));
+            if (subscribed) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
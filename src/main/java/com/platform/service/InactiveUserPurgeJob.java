@@ -0,0 +1,262 @@
+package com.platform.service;
+
+import com.platform.entity.JobCheckpoint;
+import com.platform.repository.JobCheckpointRepository;
+import com.platform.repository.RoomRepository;
+import com.platform.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 不活跃用户清理任务
+ * <p>
+ * 按主键顺序分批删除长期不活跃的用户，每批在独立的短事务中提交，批次之间暂停，
+ * 避免长时间锁住用户表。每批提交时同步更新断点，任务中断(停机或异常)后
+ * 在下次启动时从断点继续。仍在房间中的用户先通过离开房间流程移出，
+ * 房主转移、虚拟网络清理和房间广播与用户主动离开一致。
+ * 任务在独立线程中执行，不占用定时任务线程
+ * </p>
+ */
+@Service
+public class InactiveUserPurgeJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(InactiveUserPurgeJob.class);
+
+    static final String JOB_NAME = "inactive-user-purge";
+
+    public enum State {
+        IDLE, RUNNING, COMPLETED, STOPPED, FAILED
+    }
+
+    @Value("${user.purge.inactive-days:180}")
+    private int inactiveDays;
+
+    @Value("${user.purge.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${user.purge.pause-ms:200}")
+    private long pauseMillis;
+
+    private final UserRepository userRepository;
+    private final RoomRepository roomRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final RoomService roomService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter deletedCounter;
+    private final Timer chunkTimer;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+
+    // 进度信息，仅由任务线程写入
+    private volatile State state = State.IDLE;
+    private volatile Instant cutoffTime;
+    private volatile long cursorId;
+    private volatile long candidates;
+    private volatile long deleted;
+    private volatile long deletedAtStart;
+    private volatile long chunks;
+    private volatile long lastChunkMillis;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String lastError;
+
+    @Autowired
+    public InactiveUserPurgeJob(UserRepository userRepository, RoomRepository roomRepository,
+                                JobCheckpointRepository checkpointRepository, RoomService roomService,
+                                PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.roomRepository = roomRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.roomService = roomService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.deletedCounter = Counter.builder("users.purge.deleted")
+                .description("清理任务删除的不活跃用户数")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("users.purge.chunk")
+                .description("清理任务每批事务的耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动清理任务
+     * 已有未完成的断点时从断点继续，否则以当前时间计算截止时间开始新一轮
+     *
+     * @return 任务已在运行时返回false
+     */
+    public boolean start() {
+        if (stopRequested || !running.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(this::run);
+        return true;
+    }
+
+    /**
+     * 启动完成后继续上次中断的清理
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeIfInterrupted() {
+        if (checkpointRepository.existsById(JOB_NAME)) {
+            logger.info("发现未完成的不活跃用户清理，继续执行");
+            start();
+        }
+    }
+
+    /**
+     * 停机时在当前批次提交后停止，断点保留到下次启动
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopRequested = true;
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 获取清理进度
+     *
+     * @return 状态、截止时间、游标、已删除数量和吞吐量
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("cutoffTime", cutoffTime);
+        stats.put("cursorId", cursorId);
+        stats.put("candidates", candidates);
+        stats.put("deleted", deleted);
+        stats.put("chunks", chunks);
+        stats.put("chunkSize", chunkSize);
+        stats.put("lastChunkMillis", lastChunkMillis);
+        Instant start = startedAt;
+        long elapsedMillis = 0;
+        if (start != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            elapsedMillis = Duration.between(start, end).toMillis();
+        }
+        stats.put("startedAt", start);
+        stats.put("finishedAt", finishedAt);
+        stats.put("elapsedMillis", elapsedMillis);
+        // 吞吐量只计算本次运行，不含断点之前已删除的数量
+        stats.put("deletedPerSecond", elapsedMillis > 0 ? (deleted - deletedAtStart) * 1000 / elapsedMillis : 0);
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    private void run() {
+        try {
+            JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElse(null);
+            if (checkpoint == null) {
+                Instant cutoff = Instant.now().minus(Duration.ofDays(inactiveDays));
+                checkpoint = checkpointRepository.save(new JobCheckpoint(JOB_NAME, cutoff));
+            } else {
+                logger.info("从断点继续清理不活跃用户: 游标={}, 已删除={}",
+                        checkpoint.getCursorId(), checkpoint.getProcessed());
+            }
+            begin(checkpoint);
+
+            while (!stopRequested) {
+                List<Long> ids = userRepository.findInactiveUserIds(cutoffTime, cursorId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long chunkStart = System.nanoTime();
+                JobCheckpoint current = checkpoint;
+                Integer chunkDeleted = transactionTemplate.execute(status -> purgeChunk(ids, current));
+                lastChunkMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chunkStart);
+                chunkTimer.record(System.nanoTime() - chunkStart, TimeUnit.NANOSECONDS);
+                deletedCounter.increment(chunkDeleted != null ? chunkDeleted : 0);
+
+                cursorId = checkpoint.getCursorId();
+                deleted = checkpoint.getProcessed();
+                chunks++;
+                if (pauseMillis > 0 && !stopRequested) {
+                    Thread.sleep(pauseMillis);
+                }
+            }
+
+            if (stopRequested) {
+                finish(State.STOPPED);
+                logger.info("不活跃用户清理已暂停，游标={}，下次启动时继续", cursorId);
+            } else {
+                checkpointRepository.deleteById(JOB_NAME);
+                finish(State.COMPLETED);
+                logger.info("清理不活跃用户完成，截止时间: {}，删除用户数: {}，耗时 {} 毫秒",
+                        cutoffTime, deleted, Duration.between(startedAt, finishedAt).toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(State.STOPPED);
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            finish(State.FAILED);
+            logger.error("清理不活跃用户失败，游标={}: {}", cursorId, e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 在同一事务中处理一批用户：移出房间、删除用户并推进断点
+     */
+    private int purgeChunk(List<Long> ids, JobCheckpoint checkpoint) {
+        List<String> usernames = userRepository.findUsernamesByIdIn(ids);
+        for (String username : new HashSet<>(roomRepository.findPlayersIn(usernames))) {
+            roomService.leaveRoom(username);
+        }
+        int chunkDeleted = userRepository.deleteInactiveUsersByIdIn(ids, checkpoint.getCutoffTime());
+
+        checkpoint.setCursorId(ids.get(ids.size() - 1));
+        checkpoint.setProcessed(checkpoint.getProcessed() + chunkDeleted);
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+        return chunkDeleted;
+    }
+
+    private void begin(JobCheckpoint checkpoint) {
+        state = State.RUNNING;
+        cutoffTime = checkpoint.getCutoffTime();
+        cursorId = checkpoint.getCursorId();
+        deleted = checkpoint.getProcessed();
+        deletedAtStart = deleted;
+        chunks = 0;
+        lastChunkMillis = 0;
+        lastError = null;
+        startedAt = Instant.now();
+        finishedAt = null;
+        candidates = deleted + userRepository.countInactiveUsers(cutoffTime, cursorId);
+        logger.info("开始清理不活跃用户，截止时间: {}，活跃用户: {}，待清理: {}",
+                cutoffTime, userRepository.countByActiveTrue(), candidates - deleted);
+    }
+
+    private void finish(State finalState) {
+        state = finalState;
+        finishedAt = Instant.now();
+    }
+}
@@ -0,0 +1,295 @@
+package com.platform.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 消息搜索服务
+ * <p>
+ * 对大厅和房间的消息历史维护增量倒排索引：消息追加时写入索引，
+ * 历史淘汰或房间清理时同步移除。英文和数字按单词切分，
+ * 中日韩文字按单字和二元组(bigram)切分，以支持中文关键词检索
+ * </p>
+ */
+@Service
+public class MessageSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearchService.class);
+
+    // 单次搜索返回条数限制
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    // 消息ID -> 已索引消息
+    private final Map<Long, IndexedMessage> documents = new HashMap<>();
+    // 关键词 -> 消息ID集合
+    private final Map<String, NavigableSet<Long>> tokenPostings = new HashMap<>();
+    // 发送者(小写) -> 消息ID集合
+    private final Map<String, NavigableSet<Long>> senderPostings = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 将消息加入索引
+     *
+     * @param messageId 消息ID
+     * @param roomId    房间ID，大厅消息为null
+     * @param sender    发送者
+     * @param message   消息内容
+     * @param timestamp 发送时间戳
+     */
+    public void index(long messageId, Long roomId, String sender, String message, long timestamp) {
+        IndexedMessage doc = new IndexedMessage(messageId, roomId, sender, message, timestamp);
+        Set<String> tokens = tokenize(message, true);
+
+        lock.writeLock().lock();
+        try {
+            documents.put(messageId, doc);
+            for (String token : tokens) {
+                tokenPostings.computeIfAbsent(token, k -> new TreeSet<>()).add(messageId);
+            }
+            if (sender != null) {
+                senderPostings.computeIfAbsent(sender.toLowerCase(Locale.ROOT), k -> new TreeSet<>()).add(messageId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从索引中移除消息（消息历史淘汰时调用）
+     *
+     * @param messageId 消息ID
+     */
+    public void remove(long messageId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(messageId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量移除消息（房间历史清除时调用）
+     *
+     * @param messageIds 消息ID集合
+     */
+    public void removeAll(Collection<Long> messageIds) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long messageId : messageIds) {
+                removeDocument(messageId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按关键词和/或发送者搜索消息
+     *
+     * @param query  关键词，可为空
+     * @param sender 发送者，可为空
+     * @param channels 允许返回的频道：0表示大厅，其他为房间ID；为null时不限频道
+     * @param limit  最大返回条数
+     * @return 按时间倒序排列的匹配消息
+     */
+    public List<Map<String, Object>> search(String query, String sender, Set<Long> channels, int limit) {
+        int effectiveLimit = limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        Set<String> queryTokens = tokenize(query, false);
+        boolean hasSender = sender != null && !sender.isBlank();
+
+        if (queryTokens.isEmpty() && !hasSender) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            // 收集所有需要求交集的倒排列表
+            List<NavigableSet<Long>> postings = new ArrayList<>();
+            for (String token : queryTokens) {
+                NavigableSet<Long> ids = tokenPostings.get(token);
+                if (ids == null) {
+                    return Collections.emptyList();
+                }
+                postings.add(ids);
+            }
+            if (hasSender) {
+                NavigableSet<Long> ids = senderPostings.get(sender.trim().toLowerCase(Locale.ROOT));
+                if (ids == null) {
+                    return Collections.emptyList();
+                }
+                postings.add(ids);
+            }
+
+            // 从最短的列表开始，倒序遍历保证先返回最新消息
+            postings.sort(Comparator.comparingInt(Set::size));
+            NavigableSet<Long> smallest = postings.get(0);
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (Long messageId : smallest.descendingSet()) {
+                if (!containedInAll(messageId, postings)) {
+                    continue;
+                }
+                IndexedMessage doc = documents.get(messageId);
+                if (doc == null || !doc.inChannels(channels)) {
+                    continue;
+                }
+                results.add(doc.toMap());
+                if (results.size() >= effectiveLimit) {
+                    break;
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 移除单条消息及其倒排项，调用方需持有写锁
+     */
+    private void removeDocument(long messageId) {
+        IndexedMessage doc = documents.remove(messageId);
+        if (doc == null) {
+            return;
+        }
+        for (String token : tokenize(doc.message, true)) {
+            removePosting(tokenPostings, token, messageId);
+        }
+        if (doc.sender != null) {
+            removePosting(senderPostings, doc.sender.toLowerCase(Locale.ROOT), messageId);
+        }
+        logger.trace("已从搜索索引移除消息 {}", messageId);
+    }
+
+    private void removePosting(Map<String, NavigableSet<Long>> postings, String key, long messageId) {
+        NavigableSet<Long> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(messageId);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private boolean containedInAll(Long messageId, List<NavigableSet<Long>> postings) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(messageId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 文本分词
+     * 英文和数字按连续字符切分为小写单词；中日韩文字切分为二元组，
+     * 建索引时额外保留单字，以便单字查询也能命中
+     *
+     * @param text      待分词文本
+     * @param forIndex  是否用于建立索引
+     * @return 去重后的词集合
+     */
+    static Set<String> tokenize(String text, boolean forIndex) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjkRun = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (isCjk(codePoint)) {
+                flushWord(word, tokens);
+                cjkRun.appendCodePoint(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushCjkRun(cjkRun, tokens, forIndex);
+                word.appendCodePoint(Character.toLowerCase(codePoint));
+            } else {
+                flushWord(word, tokens);
+                flushCjkRun(cjkRun, tokens, forIndex);
+            }
+        }
+        flushWord(word, tokens);
+        flushCjkRun(cjkRun, tokens, forIndex);
+        return tokens;
+    }
+
+    private static void flushWord(StringBuilder word, Set<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjkRun(StringBuilder run, Set<String> tokens, boolean forIndex) {
+        if (run.length() == 0) {
+            return;
+        }
+        int[] codePoints = run.codePoints().toArray();
+        if (codePoints.length == 1 || forIndex) {
+            for (int codePoint : codePoints) {
+                tokens.add(new String(Character.toChars(codePoint)));
+            }
+        }
+        for (int j = 0; j + 1 < codePoints.length; j++) {
+            tokens.add(new String(codePoints, j, 2));
+        }
+        run.setLength(0);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 已索引的消息
+     */
+    private static final class IndexedMessage {
+        private final long id;
+        private final Long roomId;
+        private final String sender;
+        private final String message;
+        private final long timestamp;
+
+        private IndexedMessage(long id, Long roomId, String sender, String message, long timestamp) {
+            this.id = id;
+            this.roomId = roomId;
+            this.sender = sender;
+            this.message = message;
+            this.timestamp = timestamp;
+        }
+
+        private boolean inChannels(Set<Long> channels) {
+            return channels == null || channels.contains(roomId == null ? 0L : roomId);
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> result = new HashMap<>();
+            result.put("id", id);
+            result.put("roomId", roomId);
+            result.put("sender", sender);
+            result.put("message", message);
+            result.put("timestamp", timestamp);
+            return result;
+        }
+    }
+}
@@ -3,13 +3,19 @@ package com.platform.service;
 import com.platform.entity.Room;
 import com.platform.enums.MessageTarget;
 import com.platform.repository.RoomRepository;
+import com.platform.service.ChatIngestionPipeline.ChatEnvelope;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 消息服务
@@ -24,39 +30,90 @@ public class MessageService {
     private static final int MAX_ROOM_HISTORY_SIZE = 100;  // 房间消息上限
     private static final int MAX_LOBBY_HISTORY_SIZE = 500; // 大厅消息上限
 
+    // 单条聊天消息长度上限
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    // 停机时等待流水线中的消息处理完毕的最长时间
+    private static final long PIPELINE_DRAIN_TIMEOUT_MILLIS = 5000;
+
+    // 已清除历史的房间标记保留时长，远大于消息在流水线中的停留时间
+    private static final long CLEARED_ROOM_RETENTION_MILLIS = Duration.ofMinutes(10).toMillis();
+
+    @Value("${chat.pipeline.queue-capacity:10000}")
+    private int pipelineQueueCapacity;
+
+    @Value("${chat.pipeline.batch-size:64}")
+    private int pipelineBatchSize;
+
+    // 聊天管理员用户名，可搜索大厅和所有房间的消息
+    @Value("${chat.moderators:}")
+    private Set<String> moderators;
+
     // 存储消息历史
     private final List<Map<String, Object>> lobbyMessageHistory = Collections.synchronizedList(new ArrayList<>());
     private final Map<Long, List<Map<String, Object>>> roomMessageHistory = new ConcurrentHashMap<>();
+    // 房间ID -> 历史清除时间(毫秒)，校验通过后房间才被删除的消息不再写入
+    private final Map<Long, Long> clearedRooms = new ConcurrentHashMap<>();
+
+    // 消息ID序列，用于搜索索引
+    private final AtomicLong messageSequence = new AtomicLong();
 
     private final WebSocketService webSocketService;
     private final RoomRepository roomRepository;
+    private final MessageSearchService messageSearchService;
+    private ChatIngestionPipeline ingestionPipeline;
 
     @Autowired
-    public MessageService(WebSocketService webSocketService, RoomRepository roomRepository) {
+    public MessageService(WebSocketService webSocketService, RoomRepository roomRepository,
+                          MessageSearchService messageSearchService) {
         this.webSocketService = webSocketService;
         this.roomRepository = roomRepository;
+        this.messageSearchService = messageSearchService;
+    }
+
+    /**
+     * 创建并启动聊天消息接入流水线
+     */
+    @PostConstruct
+    public void startPipeline() {
+        ingestionPipeline = new ChatIngestionPipeline(pipelineQueueCapacity, pipelineBatchSize,
+                this::validateBatch, this::appendToHistory, this::publish);
+        ingestionPipeline.start();
+    }
+
+    /**
+     * 停止聊天消息接入流水线
+     */
+    @PreDestroy
+    public void stopPipeline() {
+        if (ingestionPipeline != null) {
+            ingestionPipeline.stop(PIPELINE_DRAIN_TIMEOUT_MILLIS);
+        }
+    }
+
+    /**
+     * 获取聊天流水线统计信息
+     *
+     * @return 各阶段队列深度、处理量和延迟
+     */
+    public Map<String, Object> getPipelineStats() {
+        return ingestionPipeline.getStats();
     }
 
     /**
      * 发送大厅消息
+     * 消息进入接入流水线后立即返回，校验、写入历史和广播均在流水线线程中完成
      *
      * @param senderUsername 发送者用户名
      * @param message        消息内容
+     * @return 消息是否成功入队，队列已满时返回false
      */
-    public void sendLobbyMessage(String senderUsername, String message) {
-        try {
-            // 构建消息
-            Map<String, Object> chatMessage = createMessageData(senderUsername, message, "LOBBY_MESSAGE");
-
-            // 保存消息历史
-            addLobbyMessage(senderUsername, message);
-
-            // 广播消息
-            webSocketService.broadcastMessage("/topic/lobby.messages", chatMessage);
-            logger.info("大厅消息已广播: {} - {}", senderUsername, message);
-        } catch (Exception e) {
-            logger.error("发送大厅消息失败: {}", e.getMessage(), e);
+    public boolean sendLobbyMessage(String senderUsername, String message) {
+        boolean accepted = ingestionPipeline.submit(new ChatEnvelope(null, senderUsername, message));
+        if (!accepted) {
+            logger.warn("聊天流水线繁忙，拒绝用户 {} 的大厅消息", senderUsername);
         }
+        return accepted;
     }
 
     /**
@@ -64,20 +121,24 @@ public class MessageService {
      *
      * @param sender  发送者
      * @param message 消息内容
+     * @return 已保存的消息记录
      */
-    public void addLobbyMessage(String sender, String message) {
-        Map<String, Object> messageData = createMessageData(sender, message, null);
+    public Map<String, Object> addLobbyMessage(String sender, String message) {
+        Map<String, Object> messageData = createHistoryEntry(null, sender, message);
 
-        lobbyMessageHistory.add(messageData);
-        if (lobbyMessageHistory.size() > MAX_LOBBY_HISTORY_SIZE) {
-            lobbyMessageHistory.remove(0);
-        }
+        synchronized (lobbyMessageHistory) {
+            lobbyMessageHistory.add(messageData);
+            if (lobbyMessageHistory.size() > MAX_LOBBY_HISTORY_SIZE) {
+                evictFromIndex(lobbyMessageHistory.remove(0));
+            }
 
-        // 定期记录消息数量
-        if (lobbyMessageHistory.size() % 100 == 0) {
-            logger.debug("大厅消息历史数量: {}", lobbyMessageHistory.size());
+            // 定期记录消息数量
+            if (lobbyMessageHistory.size() % 100 == 0) {
+                logger.debug("大厅消息历史数量: {}", lobbyMessageHistory.size());
 
+            }
         }
+        return messageData;
     }
 
     /**
@@ -91,52 +152,56 @@ public class MessageService {
 
     /**
      * 发送房间消息
+     * 消息进入接入流水线后立即返回，房间成员校验在流水线线程中完成
      *
      * @param roomId         房间ID
      * @param senderUsername 发送者用户名
      * @param message        消息内容
+     * @return 消息是否成功入队，队列已满时返回false
      */
-    public void sendRoomMessage(Long roomId, String senderUsername, String message) {
-        Room room = roomRepository.findById(roomId).orElse(null);
-        if (room != null && room.containsPlayer(senderUsername)) {
-            // 构建消息
-            Map<String, Object> chatMessage = createMessageData(senderUsername, message, null);
-            chatMessage.put("roomId", roomId);
-
-            // 保存消息历史
-            addRoomMessage(roomId, senderUsername, message);
-
-            // 发送到房间特定频道
-            String destination = "/topic/room." + roomId + ".messages";
-            webSocketService.broadcastMessage(destination, chatMessage);
-
-            logger.debug("用户 {} 在房间 {} 发送消息: {}", senderUsername, roomId, message);
+    public boolean sendRoomMessage(Long roomId, String senderUsername, String message) {
+        boolean accepted = ingestionPipeline.submit(new ChatEnvelope(roomId, senderUsername, message));
+        if (!accepted) {
+            logger.warn("聊天流水线繁忙，拒绝用户 {} 在房间 {} 的消息", senderUsername, roomId);
         }
+        return accepted;
     }
 
     /**
      * 添加房间消息到历史
+     * 房间历史已清除(房间已删除)时不再写入，避免为已删除的房间重建历史和搜索索引
      *
      * @param roomId  房间ID
      * @param sender  发送者
      * @param message 消息内容
+     * @return 已保存的消息记录，房间历史已清除时返回null
      */
-    public void addRoomMessage(Long roomId, String sender, String message) {
-        Map<String, Object> messageData = createMessageData(sender, message, null);
-
-        roomMessageHistory.computeIfAbsent(roomId, k -> Collections.synchronizedList(new ArrayList<>()));
-        List<Map<String, Object>> messages = roomMessageHistory.get(roomId);
-
-        messages.add(messageData);
-        if (messages.size() > MAX_ROOM_HISTORY_SIZE) {
-            messages.remove(0);
+    public Map<String, Object> addRoomMessage(Long roomId, String sender, String message) {
+        List<Map<String, Object>> messages = roomMessageHistory.computeIfAbsent(roomId,
+                k -> clearedRooms.containsKey(k) ? null : Collections.synchronizedList(new ArrayList<>()));
+        if (messages == null) {
+            return null;
         }
 
-        // 定期记录消息数量
-        if (messages.size() % 20 == 0) {
-            logger.debug("房间 {} 的消息历史数量: {}", roomId, messages.size());
+        Map<String, Object> messageData;
+        synchronized (messages) {
+            // 取得列表后历史被清除时，清除方已收集完要移出索引的消息，不能再写入
+            if (roomMessageHistory.get(roomId) != messages) {
+                return null;
+            }
+            messageData = createHistoryEntry(roomId, sender, message);
+            messages.add(messageData);
+            if (messages.size() > MAX_ROOM_HISTORY_SIZE) {
+                evictFromIndex(messages.remove(0));
+            }
+
+            // 定期记录消息数量
+            if (messages.size() % 20 == 0) {
+                logger.debug("房间 {} 的消息历史数量: {}", roomId, messages.size());
 
+            }
         }
+        return messageData;
     }
 
     /**
@@ -159,8 +224,19 @@ public class MessageService {
      * @param roomId 房间ID
      */
     public void clearRoomMessageHistory(Long roomId) {
+        long now = System.currentTimeMillis();
+        clearedRooms.values().removeIf(clearedAt -> clearedAt < now - CLEARED_ROOM_RETENTION_MILLIS);
+        clearedRooms.put(roomId, now);
+
         List<Map<String, Object>> removedMessages = roomMessageHistory.remove(roomId);
         if (removedMessages != null) {
+            List<Long> messageIds = new ArrayList<>();
+            synchronized (removedMessages) {
+                for (Map<String, Object> removed : removedMessages) {
+                    messageIds.add((Long) removed.get("id"));
+                }
+            }
+            messageSearchService.removeAll(messageIds);
             logger.debug("已清除房间 {} 的 {} 条消息历史", roomId, removedMessages.size());
         }
     }
@@ -173,9 +249,48 @@ public class MessageService {
      * @param message 消息内容
      */
     public void sendSystemMessage(MessageTarget target, Long roomId, String message) {
+        dispatchSystemMessage(target, roomId, message, null);
+    }
+
+    /**
+     * 发送系统汇总消息
+     * 多条通知合并为一条消息，历史中只保留汇总内容
+     *
+     * @param target  消息目标类型 (LOBBY, ROOM, ALL)
+     * @param roomId  如果是房间消息，则提供房间ID；否则可为null
+     * @param summary 汇总内容
+     * @param details 被合并的各条通知
+     */
+    public void sendSystemSummary(MessageTarget target, Long roomId, String summary, List<String> details) {
+        dispatchSystemMessage(target, roomId, summary, details);
+    }
+
+    /**
+     * 创建系统通知聚合器
+     * 用于批量清理等会产生大量系统通知的场景
+     *
+     * @return 新的聚合器实例
+     */
+    public SystemNotificationAggregator createNotificationAggregator() {
+        return new SystemNotificationAggregator(this);
+    }
+
+    /**
+     * 构建并发送系统消息
+     *
+     * @param target  消息目标类型
+     * @param roomId  房间ID
+     * @param message 消息内容
+     * @param details 汇总明细，单条消息为null
+     */
+    private void dispatchSystemMessage(MessageTarget target, Long roomId, String message, List<String> details) {
         try {
             // 构建系统消息
             Map<String, Object> systemMessage = createMessageData("系统", message, "SYSTEM_MESSAGE");
+            if (details != null) {
+                systemMessage.put("details", details);
+                systemMessage.put("count", details.size());
+            }
 
             switch (target) {
                 case LOBBY:
@@ -219,6 +334,131 @@ public class MessageService {
         }
     }
 
+    /**
+     * 搜索消息历史
+     *
+     * @param query  关键词，可为空
+     * @param sender 发送者，可为空
+     * @param channels 允许返回的频道：0表示大厅，其他为房间ID；为null时不限频道
+     * @param limit  最大返回条数
+     * @return 匹配的消息列表，按时间倒序
+     */
+    public List<Map<String, Object>> searchMessages(String query, String sender, Set<Long> channels, int limit) {
+        return messageSearchService.search(query, sender, channels, limit);
+    }
+
+    /**
+     * 判断用户是否为聊天管理员
+     * 管理员由配置项 chat.moderators 指定
+     *
+     * @param username 用户名
+     * @return 是否为管理员
+     */
+    public boolean isModerator(String username) {
+        return username != null && moderators.contains(username);
+    }
+
+    // ==================== 流水线阶段 ====================
+
+    /**
+     * 校验阶段：过滤空消息、超长消息以及非房间成员发送的房间消息
+     * 同一批次内每个房间只查询一次成员用户名；校验线程没有事务和会话，不能读取房间的延迟加载集合
+     */
+    private List<ChatEnvelope> validateBatch(List<ChatEnvelope> batch) {
+        List<ChatEnvelope> passed = new ArrayList<>(batch.size());
+        Map<Long, Set<String>> membersByRoom = new HashMap<>();
+
+        for (ChatEnvelope envelope : batch) {
+            String message = envelope.getMessage();
+            if (message == null || message.trim().isEmpty()) {
+                continue;
+            }
+            if (message.length() > MAX_MESSAGE_LENGTH) {
+                logger.warn("用户 {} 的消息超过长度限制 ({} 字符)，已丢弃", envelope.getSender(), message.length());
+                continue;
+            }
+            if (!envelope.isLobby()) {
+                Set<String> members = membersByRoom.computeIfAbsent(envelope.getRoomId(),
+                        roomId -> new HashSet<>(roomRepository.findPlayerUsernames(roomId)));
+                if (!members.contains(envelope.getSender())) {
+                    logger.warn("用户 {} 不在房间 {} 中，消息已丢弃", envelope.getSender(), envelope.getRoomId());
+                    continue;
+                }
+            }
+            passed.add(envelope);
+        }
+        return passed;
+    }
+
+    /**
+     * 排序阶段：分配消息ID并写入历史，构建广播内容
+     * 校验之后房间已被删除的消息在此丢弃
+     *
+     * @return 消息是否已写入历史
+     */
+    private boolean appendToHistory(ChatEnvelope envelope) {
+        Map<String, Object> chatMessage;
+        if (envelope.isLobby()) {
+            Map<String, Object> stored = addLobbyMessage(envelope.getSender(), envelope.getMessage());
+            chatMessage = createMessageData(envelope.getSender(), envelope.getMessage(), "LOBBY_MESSAGE");
+            chatMessage.put("id", stored.get("id"));
+        } else {
+            Map<String, Object> stored = addRoomMessage(envelope.getRoomId(), envelope.getSender(), envelope.getMessage());
+            if (stored == null) {
+                logger.debug("房间 {} 已删除，用户 {} 的消息已丢弃", envelope.getRoomId(), envelope.getSender());
+                return false;
+            }
+            chatMessage = createMessageData(envelope.getSender(), envelope.getMessage(), null);
+            chatMessage.put("id", stored.get("id"));
+            chatMessage.put("roomId", envelope.getRoomId());
+        }
+        envelope.setPayload(chatMessage);
+        return true;
+    }
+
+    /**
+     * 广播阶段：发送到大厅或房间频道
+     */
+    private void publish(ChatEnvelope envelope) {
+        if (envelope.isLobby()) {
+            webSocketService.broadcastMessage("/topic/lobby.messages", envelope.getPayload());
+            logger.debug("大厅消息已广播: {}", envelope.getSender());
+        } else {
+            String destination = "/topic/room." + envelope.getRoomId() + ".messages";
+            webSocketService.broadcastMessage(destination, envelope.getPayload());
+            logger.debug("用户 {} 在房间 {} 发送消息", envelope.getSender(), envelope.getRoomId());
+        }
+    }
+
+    /**
+     * 创建消息历史记录并加入搜索索引
+     *
+     * @param roomId  房间ID，大厅消息为null
+     * @param sender  发送者
+     * @param message 消息内容
+     * @return 消息历史记录
+     */
+    private Map<String, Object> createHistoryEntry(Long roomId, String sender, String message) {
+        Map<String, Object> messageData = createMessageData(sender, message, null);
+        long messageId = messageSequence.incrementAndGet();
+        messageData.put("id", messageId);
+
+        messageSearchService.index(messageId, roomId, sender, message, (Long) messageData.get("timestamp"));
+        return messageData;
+    }
+
+    /**
+     * 历史淘汰时同步移除索引
+     *
+     * @param evicted 被淘汰的消息记录
+     */
+    private void evictFromIndex(Map<String, Object> evicted) {
+        Object messageId = evicted.get("id");
+        if (messageId != null) {
+            messageSearchService.remove((Long) messageId);
+        }
+    }
+
     /**
      * 创建基础消息数据结构
      *
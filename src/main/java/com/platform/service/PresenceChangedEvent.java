@@ -0,0 +1,24 @@
+package com.platform.service;
+
+/**
+ * 用户在线状态变化事件
+ * 由 PresenceService 在用户上线(登录或建立首个连接)和离线(全部连接断开、登出或登录宽限期结束)时发布
+ */
+public class PresenceChangedEvent {
+
+    private final String username;
+    private final boolean online;
+
+    public PresenceChangedEvent(String username, boolean online) {
+        this.username = username;
+        this.online = online;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+}
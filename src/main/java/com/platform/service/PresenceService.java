@@ -0,0 +1,322 @@
+package com.platform.service;
+
+import com.platform.config.WebSocketBrokerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在线状态服务
+ * <p>
+ * 根据STOMP连接建立和断开事件在内存中维护 用户名 -> 会话集合 的映射，
+ * 用户的全部会话断开后立即视为离线，作为用户在线状态的唯一依据。
+ * 用户通过REST登录后尚未建立WebSocket连接时，在登录宽限期内视为在线，
+ * 宽限期由时间轮定时器到期结束。上线和离线时发布 {@link PresenceChangedEvent}，事件只反映本节点的连接。
+ * relay模式(多节点)下用户可能连接在其他节点上，{@link #isOnlineInCluster} 另外查询各节点广播同步的
+ * 用户注册表，其他节点的连接变化约在一个广播周期(10秒)内可见
+ * </p>
+ */
+@Service
+public class PresenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceService.class);
+
+    // 离线记录超过该数量时清理过期项
+    private static final int OFFLINE_RECORDS_PRUNE_THRESHOLD = 10000;
+    // 登录宽限期定时器的键前缀
+    private static final String GRACE_TIMER_PREFIX = "presence.grace:";
+
+    @Value("${presence.login-grace-seconds:60}")
+    private int loginGraceSeconds;
+
+    // 用户名 -> 会话ID集合，集合大小即引用计数。
+    // 同一用户的上线/离线转换都在该映射的 compute 中判断，以条目作为用户级的锁，
+    // 有会话或有宽限期记录即视为已发布上线、尚未发布离线
+    private final Map<String, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+    // 用户名 -> 登录宽限期截止时间(毫秒)，已过期的记录在发布离线时移除
+    private final Map<String, Long> loginGrace = new ConcurrentHashMap<>();
+    // 用户名 -> 离线开始时间(毫秒)
+    private final Map<String, Long> offlineSince = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    private final WebSocketService webSocketService;
+    private final ActiveUserDirectory activeUserDirectory;
+    private final TimingWheel timingWheel;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SimpUserRegistry simpUserRegistry;
+    private final WebSocketBrokerProperties brokerProperties;
+
+    @Autowired
+    public PresenceService(WebSocketService webSocketService, ActiveUserDirectory activeUserDirectory,
+                           TimingWheel timingWheel, ApplicationEventPublisher eventPublisher,
+                           SimpUserRegistry simpUserRegistry, WebSocketBrokerProperties brokerProperties) {
+        this.webSocketService = webSocketService;
+        this.activeUserDirectory = activeUserDirectory;
+        this.timingWheel = timingWheel;
+        this.eventPublisher = eventPublisher;
+        this.simpUserRegistry = simpUserRegistry;
+        this.brokerProperties = brokerProperties;
+    }
+
+    /**
+     * STOMP连接建立
+     */
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user == null || sessionId == null) {
+            return;
+        }
+        String username = user.getName();
+
+        boolean[] cameOnline = new boolean[1];
+        sessionsByUser.compute(username, (key, sessions) -> {
+            cameOnline[0] = !wasOnline(key, sessions);
+            Set<String> result = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            result.add(sessionId);
+            loginGrace.remove(key);
+            return result;
+        });
+        timingWheel.cancel(GRACE_TIMER_PREFIX + username);
+        offlineSince.remove(username);
+
+        if (cameOnline[0]) {
+            activeUserDirectory.setOnline(username, true);
+            webSocketService.sendUserStatusUpdate(username, true);
+            eventPublisher.publishEvent(new PresenceChangedEvent(username, true));
+        }
+        logger.debug("用户 {} 建立连接，会话: {}", username, sessionId);
+    }
+
+    /**
+     * STOMP连接断开
+     * 最后一个会话断开且不在登录宽限期内时立即标记为离线并广播
+     */
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return;
+        }
+        String username = user.getName();
+        String sessionId = event.getSessionId();
+
+        boolean[] wentOffline = new boolean[1];
+        sessionsByUser.computeIfPresent(username, (key, sessions) -> {
+            if (!sessions.remove(sessionId) || !sessions.isEmpty()) {
+                return sessions;
+            }
+            wentOffline[0] = !loginGrace.containsKey(key);
+            return null;
+        });
+
+        if (wentOffline[0]) {
+            markOffline(username);
+            logger.debug("用户 {} 的所有连接已断开", username);
+        }
+    }
+
+    /**
+     * 用户通过REST登录
+     * 在宽限期内等待其建立WebSocket连接
+     *
+     * @param username 用户名
+     */
+    public void markLoggedIn(String username) {
+        Duration grace = Duration.ofSeconds(loginGraceSeconds);
+        long graceUntil = System.currentTimeMillis() + grace.toMillis();
+
+        boolean[] cameOnline = new boolean[1];
+        sessionsByUser.compute(username, (key, sessions) -> {
+            cameOnline[0] = !wasOnline(key, sessions);
+            loginGrace.put(key, graceUntil);
+            return sessions;
+        });
+        timingWheel.schedule(GRACE_TIMER_PREFIX + username, grace, () -> expireLoginGrace(username, graceUntil));
+        offlineSince.remove(username);
+
+        if (cameOnline[0]) {
+            activeUserDirectory.setOnline(username, true);
+            eventPublisher.publishEvent(new PresenceChangedEvent(username, true));
+        }
+    }
+
+    /**
+     * 用户登出
+     * 不再等待其连接断开，立即视为离线；已经离线的用户不重复广播
+     *
+     * @param username 用户名
+     */
+    public void markLoggedOut(String username) {
+        boolean[] wentOffline = new boolean[1];
+        sessionsByUser.compute(username, (key, sessions) -> {
+            wentOffline[0] = wasOnline(key, sessions);
+            loginGrace.remove(key);
+            return null;
+        });
+        timingWheel.cancel(GRACE_TIMER_PREFIX + username);
+
+        if (wentOffline[0]) {
+            markOffline(username);
+        }
+    }
+
+    /**
+     * 判断用户是否在线
+     * 有WebSocket连接或处于登录宽限期
+     *
+     * @param username 用户名
+     * @return 是否在线
+     */
+    public boolean isOnline(String username) {
+        if (username == null) {
+            return false;
+        }
+        if (sessionsByUser.containsKey(username)) {
+            return true;
+        }
+        Long graceUntil = loginGrace.get(username);
+        if (graceUntil != null) {
+            if (graceUntil >= System.currentTimeMillis()) {
+                return true;
+            }
+            expireLoginGrace(username, graceUntil);
+        }
+        return false;
+    }
+
+    /**
+     * 判断用户是否在任一节点上在线
+     * relay模式下除本节点的连接和登录宽限期外，还查询同步了其他节点会话的用户注册表
+     *
+     * @param username 用户名
+     * @return 是否在线
+     */
+    public boolean isOnlineInCluster(String username) {
+        if (isOnline(username)) {
+            return true;
+        }
+        return isClusterMode() && simpUserRegistry.getUser(username) != null;
+    }
+
+    /**
+     * 判断是否多节点部署
+     * 多节点时本节点的连接记录不是完整的在线状态
+     *
+     * @return relay模式时返回true
+     */
+    public boolean isClusterMode() {
+        return brokerProperties.isRelayMode();
+    }
+
+    /**
+     * 判断登录时间是否仍在登录宽限期内
+     * 多节点部署时用于判断在其他节点登录、尚未建立连接的用户
+     *
+     * @param loginTime 登录时间
+     * @return 是否在宽限期内
+     */
+    public boolean isWithinLoginGrace(Instant loginTime) {
+        return loginTime != null && loginTime.plusSeconds(loginGraceSeconds).isAfter(Instant.now());
+    }
+
+    /**
+     * 获取用户已离线的时长
+     * 本节点启动后未见过的用户按启动时间计算，在任一节点上在线的用户视为未离线
+     *
+     * @param username 用户名
+     * @return 离线时长，在线时为零
+     */
+    public Duration getOfflineDuration(String username) {
+        if (isOnlineInCluster(username)) {
+            return Duration.ZERO;
+        }
+        long since = offlineSince.getOrDefault(username, startedAt);
+        return Duration.ofMillis(Math.max(0, System.currentTimeMillis() - since));
+    }
+
+    /**
+     * 获取所有在线用户名
+     *
+     * @return 在线用户名集合
+     */
+    public Set<String> getOnlineUsernames() {
+        Set<String> usernames = new HashSet<>(sessionsByUser.keySet());
+        for (String username : loginGrace.keySet()) {
+            if (isOnline(username)) {
+                usernames.add(username);
+            }
+        }
+        return usernames;
+    }
+
+    /**
+     * 获取在线状态统计信息
+     *
+     * @return 在线用户数、会话数和宽限期用户数
+     */
+    public Map<String, Object> getStats() {
+        int sessions = 0;
+        for (Set<String> userSessions : sessionsByUser.values()) {
+            sessions += userSessions.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connectedUsers", sessionsByUser.size());
+        stats.put("sessions", sessions);
+        stats.put("pendingLogins", loginGrace.size());
+        stats.put("onlineUsers", getOnlineUsernames().size());
+        return stats;
+    }
+
+    /**
+     * 是否已发布上线且尚未发布离线，在 sessionsByUser 的 compute 中调用
+     */
+    private boolean wasOnline(String username, Set<String> sessions) {
+        return sessions != null || loginGrace.containsKey(username);
+    }
+
+    /**
+     * 记录离线时间并广播离线，只在上线转为离线时调用一次
+     */
+    private void markOffline(String username) {
+        offlineSince.put(username, System.currentTimeMillis());
+        if (offlineSince.size() > OFFLINE_RECORDS_PRUNE_THRESHOLD) {
+            // 离线超过一天的记录对房间清理已无区别
+            long expireBefore = System.currentTimeMillis() - Duration.ofDays(1).toMillis();
+            offlineSince.values().removeIf(since -> since < expireBefore);
+        }
+        activeUserDirectory.setOnline(username, false);
+        webSocketService.sendUserStatusUpdate(username, false);
+        eventPublisher.publishEvent(new PresenceChangedEvent(username, false));
+    }
+
+    /**
+     * 结束登录宽限期
+     * 登录后始终未建立连接的用户在宽限期结束时转为离线，期间重新登录的以新的宽限期为准
+     */
+    private void expireLoginGrace(String username, long graceUntil) {
+        boolean[] wentOffline = new boolean[1];
+        sessionsByUser.compute(username, (key, sessions) -> {
+            wentOffline[0] = loginGrace.remove(key, graceUntil) && sessions == null;
+            return sessions;
+        });
+        if (wentOffline[0]) {
+            markOffline(username);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.platform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.platform.entity.Room;
+import com.platform.entity.RoomEvent;
+import com.platform.enums.RoomEventType;
+import com.platform.repository.RoomEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 房间事件日志
+ * <p>
+ * 房间的创建、加入、离开、开始、结束和删除在房间修改所在的事务中追加一条事件，
+ * 房间修改回滚时事件一同回滚。事件提交后由 {@link RoomEventRelay} 分配偏移量并投递，
+ * 消费者也可以按偏移量分页读取，从上次处理的位置继续
+ * </p>
+ */
+@Service
+public class RoomEventJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomEventJournal.class);
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+
+    @Value("${room.events.max-page-size:500}")
+    private int maxPageSize;
+
+    private final RoomEventRepository roomEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public RoomEventJournal(RoomEventRepository roomEventRepository, ObjectMapper objectMapper) {
+        this.roomEventRepository = roomEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 在当前事务中追加房间事件，记录事件发生后的房间状态
+     *
+     * @param room 房间
+     * @param type 事件类型
+     * @param usernames 相关用户，第一个作为事件的触发用户
+     */
+    public void append(Room room, RoomEventType type, List<String> usernames) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("name", room.getName());
+        payload.put("gameName", room.getGameName());
+        payload.put("maxPlayers", room.getMaxPlayers());
+        payload.put("creatorUsername", room.getCreatorUsername());
+        payload.put("status", room.getStatus().name());
+        payload.put("players", new ArrayList<>(room.getPlayers()));
+        payload.put("usernames", usernames);
+
+        String username = usernames.isEmpty() ? null : usernames.get(0);
+        try {
+            roomEventRepository.save(new RoomEvent(room.getId(), type, username,
+                    objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("房间事件序列化失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 按偏移量分页读取已分配偏移量的事件
+     *
+     * @param after 上次处理的偏移量，从头读取时为0
+     * @param limit 每页条数
+     * @return 本页事件及下次读取使用的偏移量
+     */
+    public Map<String, Object> getPage(long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        List<RoomEvent> events = roomEventRepository.findBySeqGreaterThanOrderBySeqAsc(
+                Math.max(after, 0), PageRequest.of(0, pageSize));
+
+        List<Map<String, Object>> items = new ArrayList<>(events.size());
+        for (RoomEvent event : events) {
+            items.add(toMessage(event));
+        }
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("events", items);
+        page.put("nextOffset", events.isEmpty() ? Math.max(after, 0) : events.get(events.size() - 1).getSeq());
+        return page;
+    }
+
+    /**
+     * 转换为投递给消费者的消息
+     */
+    Map<String, Object> toMessage(RoomEvent event) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("offset", event.getSeq());
+        message.put("roomId", event.getRoomId());
+        message.put("type", event.getType().name());
+        message.put("username", event.getUsername());
+        message.put("timestamp", event.getCreatedAt().toEpochMilli());
+        message.put("room", parsePayload(event));
+        return message;
+    }
+
+    private Map<String, Object> parsePayload(RoomEvent event) {
+        if (event.getPayload() == null) {
+            return Collections.emptyMap();
+        }
+        try {
+            return objectMapper.readValue(event.getPayload(), PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            logger.error("解析房间事件 {} 失败: {}", event.getSeq(), e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+}
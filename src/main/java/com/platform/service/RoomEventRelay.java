@@ -0,0 +1,237 @@
+package com.platform.service;
+
+import com.platform.entity.JobCheckpoint;
+import com.platform.entity.RoomEvent;
+import com.platform.repository.JobCheckpointRepository;
+import com.platform.repository.RoomEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 房间事件中继
+ * <p>
+ * 定期执行两步：先按写入顺序为已提交但未分配偏移量的事件分配连续的偏移量，同一批在一个事务中提交；
+ * 再按偏移量顺序将断点之后的事件分批广播到 {@value #ROOM_EVENTS_TOPIC}，
+ * 并作为应用事件发布给进程内的 {@code @EventListener(RoomEvent)} 监听器，投递完成后在同一事务中推进断点。
+ * 两步的事务都先对断点行加行锁，多个节点之间串行执行：同一时刻只有一个节点在分配或投递，
+ * 其他节点等锁释放后读到的是已分配的偏移量和已推进的断点，不会重复分配或重复投递。
+ * 偏移量上另有唯一索引兜底。
+ * 投递至少一次：投递后推进断点前停机，重启后会重复投递，消费者按偏移量去重
+ * </p>
+ */
+@Service
+public class RoomEventRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomEventRelay.class);
+
+    static final String CHECKPOINT_NAME = "room-event-relay";
+
+    // 房间事件主题，消息带有偏移量，断线后可通过 /api/rooms/events 从偏移量续读
+    public static final String ROOM_EVENTS_TOPIC = "/topic/rooms.events";
+
+    @Value("${room.events.relay-batch-size:200}")
+    private int batchSize;
+
+    @Value("${room.events.retention-hours:168}")
+    private int retentionHours;
+
+    private final RoomEventRepository roomEventRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final RoomEventJournal roomEventJournal;
+    private final WebSocketService webSocketService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter publishedCounter;
+
+    // 最近一次从断点读到或推进到的偏移量，仅用于统计和清理，投递时以锁定的断点为准
+    private volatile long deliveredOffset = -1;
+    private volatile boolean checkpointCreated;
+    private volatile long sequencedOffset;
+    private volatile long sequenceConflicts;
+    private volatile long lockContentions;
+    private volatile Instant lastDeliveredAt;
+    private volatile String lastError;
+
+    @Autowired
+    public RoomEventRelay(RoomEventRepository roomEventRepository, JobCheckpointRepository checkpointRepository,
+                          RoomEventJournal roomEventJournal, WebSocketService webSocketService,
+                          ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.roomEventRepository = roomEventRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.roomEventJournal = roomEventJournal;
+        this.webSocketService = webSocketService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.publishedCounter = Counter.builder("rooms.events.published")
+                .description("中继投递的房间事件数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 分配偏移量并投递新事件，每次最多处理一批
+     *
+     * @return 本次投递的事件数
+     */
+    public synchronized int relay() {
+        try {
+            sequencePending();
+            return deliver();
+        } catch (DataIntegrityViolationException e) {
+            // 偏移量唯一索引冲突(分配已在断点锁下串行，正常不会发生)，下一轮重新分配
+            sequenceConflicts++;
+            logger.debug("房间事件偏移量分配冲突，下一轮重试: {}", e.getMessage());
+            return 0;
+        } catch (PessimisticLockingFailureException e) {
+            // 其他节点持有断点锁的时间超过了锁等待时间，由其继续投递
+            lockContentions++;
+            logger.debug("房间事件断点被其他节点锁定，下一轮重试: {}", e.getMessage());
+            return 0;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.error("房间事件中继失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 删除已投递且超过保留时长的事件
+     *
+     * @return 删除的事件数
+     */
+    public int purgeExpired() {
+        if (deliveredOffset <= 0) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofHours(retentionHours));
+        Integer deleted = transactionTemplate.execute(status ->
+                roomEventRepository.deleteDeliveredBefore(deliveredOffset, cutoff));
+        if (deleted != null && deleted > 0) {
+            logger.info("已删除 {} 条超过 {} 小时的房间事件", deleted, retentionHours);
+        }
+        return deleted != null ? deleted : 0;
+    }
+
+    /**
+     * 获取中继状态
+     *
+     * @return 已分配和已投递的偏移量、待分配事件数等
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sequencedOffset", sequencedOffset);
+        stats.put("deliveredOffset", Math.max(deliveredOffset, 0));
+        stats.put("pending", roomEventRepository.countBySeqIsNull());
+        stats.put("published", (long) publishedCounter.count());
+        stats.put("sequenceConflicts", sequenceConflicts);
+        stats.put("lockContentions", lockContentions);
+        stats.put("batchSize", batchSize);
+        stats.put("lastDeliveredAt", lastDeliveredAt);
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    private void sequencePending() {
+        ensureCheckpoint();
+        transactionTemplate.executeWithoutResult(status -> {
+            lockCheckpoint();
+            List<RoomEvent> pending = roomEventRepository.findBySeqIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+            if (pending.isEmpty()) {
+                return;
+            }
+            long next = roomEventRepository.findMaxSeq();
+            for (RoomEvent event : pending) {
+                event.setSeq(++next);
+            }
+            sequencedOffset = next;
+        });
+    }
+
+    private int deliver() {
+        List<RoomEvent> events = transactionTemplate.execute(status -> deliverBatch());
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+        deliveredOffset = events.get(events.size() - 1).getSeq();
+        lastDeliveredAt = Instant.now();
+        publishedCounter.increment(events.size());
+        return events.size();
+    }
+
+    /**
+     * 锁定断点后投递断点之后的一批事件并推进断点，须在事务中调用
+     *
+     * @return 本次投递的事件
+     */
+    private List<RoomEvent> deliverBatch() {
+        JobCheckpoint checkpoint = lockCheckpoint();
+        deliveredOffset = checkpoint.getCursorId();
+
+        List<RoomEvent> events = roomEventRepository.findBySeqGreaterThanOrderBySeqAsc(
+                checkpoint.getCursorId(), PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        for (RoomEvent event : events) {
+            webSocketService.broadcastToSubscribers(ROOM_EVENTS_TOPIC, roomEventJournal.toMessage(event));
+            try {
+                eventPublisher.publishEvent(event);
+            } catch (Exception e) {
+                // 监听器异常不影响后续事件的投递
+                logger.error("房间事件 {} 的进程内监听器处理失败: {}", event.getSeq(), e.getMessage(), e);
+            }
+        }
+
+        checkpoint.setCursorId(events.get(events.size() - 1).getSeq());
+        checkpoint.setProcessed(checkpoint.getProcessed() + events.size());
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+        return events;
+    }
+
+    /**
+     * 读取断点并加行锁，锁持有到当前事务结束
+     */
+    private JobCheckpoint lockCheckpoint() {
+        return checkpointRepository.findByJobNameForUpdate(CHECKPOINT_NAME)
+                .orElseThrow(() -> new IllegalStateException("房间事件中继断点不存在"));
+    }
+
+    /**
+     * 首次中继前确保断点行存在，多个节点同时创建时只有一个成功
+     */
+    private void ensureCheckpoint() {
+        if (checkpointCreated) {
+            return;
+        }
+        if (!checkpointRepository.existsById(CHECKPOINT_NAME)) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        checkpointRepository.save(new JobCheckpoint(CHECKPOINT_NAME, null)));
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("房间事件中继断点已由其他节点创建");
+            }
+        }
+        sequencedOffset = Math.max(sequencedOffset, roomEventRepository.findMaxSeq());
+        checkpointCreated = true;
+    }
+}
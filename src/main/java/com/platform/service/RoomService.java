@@ -1,44 +1,115 @@
 package com.platform.service;
 
+import com.platform.config.OutboundBackpressureManager;
 import com.platform.entity.Room;
 import com.platform.entity.User;
 import com.platform.enums.MessageTarget;
+import com.platform.enums.RoomEventType;
 import com.platform.repository.RoomRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 /**
  * 房间服务
- * 处理游戏房间的创建、加入、退出、游戏状态管理以及房间清理等操作
+ * 处理游戏房间的创建、加入、退出、游戏状态管理以及房间清理等操作。
+ * 每个房间操作在一个事务中完成，房间和用户的修改在提交时一次写入；
+ * 广播、系统消息和内存状态更新推迟到事务提交之后执行；
+ * 房间生命周期事件在同一事务中写入房间事件日志，由事件中继在提交后按顺序投递。
+ * 房间带版本号，多个节点或线程同时修改同一房间时后提交者发生冲突，
+ * 此时重新读取房间并重做整个操作，重试次数有上限，重试前随机退避。
+ * 断线玩家移出房间和空房间删除由时间轮定时器到期触发，不再定期扫描全部房间。
+ * 虚拟网络、IP分配和消息历史都保存在内存中，不随事务回滚，只在事务提交后修改
  */
 @Service
 public class RoomService {
 
     private static final Logger logger = LoggerFactory.getLogger(RoomService.class);
 
+    // 全部房间更新的公共主题，及按游戏划分的房间更新主题前缀
+    public static final String ROOM_UPDATES_TOPIC = "/topic/rooms.updates";
+    public static final String GAME_ROOM_UPDATES_TOPIC_PREFIX = ROOM_UPDATES_TOPIC + ".";
+
+    // 断线玩家移出房间、空房间删除的定时器键前缀
+    private static final String EVICT_TIMER_PREFIX = "room.evict:";
+    private static final String EMPTY_ROOM_TIMER_PREFIX = "room.empty:";
+
     private final RoomRepository roomRepository;
     private final UserService userService;
     private final WebSocketService webSocketService;
     private final MessageService messageService;
     private final VirtualNetworkService networkService;
+    private final PresenceService presenceService;
+    private final ActiveUserDirectory activeUserDirectory;
+    private final RoomEventJournal roomEventJournal;
+    private final TimingWheel timingWheel;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final MeterRegistry meterRegistry;
 
     @Value("${virtual.network.default:N2N}")
     private String networkType;
 
+    // 玩家断线超过该时长才会被移出房间，避免短暂重连导致掉出房间
+    @Value("${presence.room-eviction-grace-seconds:60}")
+    private int roomEvictionGraceSeconds;
+
+    // 房间清空后保留的时长，期间无人加入则删除
+    @Value("${room.empty-room-ttl-seconds:300}")
+    private int emptyRoomTtlSeconds;
+
+    // 并发冲突时的最多尝试次数(含第一次)
+    @Value("${room.conflict-retry.max-attempts:6}")
+    private int conflictMaxAttempts;
+
+    // 重试退避基数(毫秒)，第n次重试在 [0, 基数*2^(n-1)] 内随机等待
+    @Value("${room.conflict-retry.backoff-millis:20}")
+    private long conflictBackoffMillis;
+
     @Autowired
     public RoomService(RoomRepository roomRepository, UserService userService, WebSocketService webSocketService,
-                       MessageService messageService, VirtualNetworkFactory networkFactory) {
+                       MessageService messageService, VirtualNetworkFactory networkFactory,
+                       PresenceService presenceService, ActiveUserDirectory activeUserDirectory,
+                       RoomEventJournal roomEventJournal, TimingWheel timingWheel,
+                       EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
         this.roomRepository = roomRepository;
         this.userService = userService;
         this.webSocketService = webSocketService;
         this.messageService = messageService;
         this.networkService = networkFactory.getService(networkType);
+        this.presenceService = presenceService;
+        this.activeUserDirectory = activeUserDirectory;
+        this.roomEventJournal = roomEventJournal;
+        this.timingWheel = timingWheel;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -50,6 +121,7 @@ public class RoomService {
      * @param maxPlayers 最大玩家数
      * @return 创建的房间对象，创建失败返回null
      */
+    @Transactional
     public Room createRoom(String username, String roomName, String gameName, int maxPlayers) {
         // 用户验证
         User user = userService.findByUsername(username);
@@ -74,8 +146,9 @@ public class RoomService {
         Room room = new Room(roomName, gameName, maxPlayers, username);
         Room savedRoom = roomRepository.save(room);
 
-        // 创建虚拟网络并配置
+        // 创建虚拟网络并配置，房间未能创建时删除
         String networkId = networkService.createNetwork();
+        afterRollback(() -> networkService.deleteNetwork(networkId));
         String networkName = "room_" + savedRoom.getId();
         String networkSecret = networkService.generateNetworkSecret();
 
@@ -85,20 +158,14 @@ public class RoomService {
         savedRoom.setNetworkType(networkService.getTechnologyName());
         savedRoom.addPlayer(username);
 
-        // 为创建者分配虚拟IP
-        try {
-            String virtualIp = networkService.assignIpAddress(username, networkId);
-            user.setVirtualIp(virtualIp);
-            user.setRoomId(savedRoom.getId());
-            userService.updateUser(user);
-            logger.info("为房主 {} 分配虚拟IP: {}", username, virtualIp);
-        } catch (Exception e) {
-            logger.error("为房主 {} 分配虚拟IP时出错: {}", username, e.getMessage(), e);
-        }
+        user.setRoomId(savedRoom.getId());
+        userService.updateUser(user);
 
-        // 保存并广播房间创建消息
-        savedRoom = roomRepository.save(savedRoom);
-        broadcastRoomUpdate(savedRoom, "CREATED", username);
+        // 房间已受事务管理，网络配置和玩家在提交时写入；提交后为房主分配虚拟IP并广播房间创建消息
+        long roomId = savedRoom.getId();
+        afterCommit(() -> activeUserDirectory.setRoom(username, roomId));
+        afterCommit(() -> assignVirtualIp(username, networkId));
+        broadcastRoomUpdate(savedRoom, RoomEventType.CREATED, username);
 
         logger.info("用户 {} 创建了房间: {}, 虚拟网络ID: {}", username, roomName, networkId);
         return savedRoom;
@@ -112,6 +179,10 @@ public class RoomService {
      * @return 加入成功返回true，否则返回false
      */
     public boolean joinRoom(String username, Long roomId) {
+        return withConflictRetry("join", () -> doJoinRoom(username, roomId));
+    }
+
+    private boolean doJoinRoom(String username, Long roomId) {
         // 用户验证
         User user = userService.findByUsername(username);
         if (user == null || !userService.isUserActive(user)) {
@@ -144,21 +215,15 @@ public class RoomService {
 
         // 将用户添加到房间
         room.addPlayer(username);
+        user.setRoomId(roomId);
+        userService.updateUser(user);
 
-        // 为用户分配虚拟IP
-        try {
-            String virtualIp = networkService.assignIpAddress(username, room.getNetworkId());
-            user.setVirtualIp(virtualIp);
-            user.setRoomId(roomId);
-            userService.updateUser(user);
-            logger.info("为用户 {} 分配虚拟IP: {}", username, virtualIp);
-        } catch (Exception e) {
-            logger.error("为用户 {} 分配虚拟IP时出错: {}", username, e.getMessage(), e);
-        }
-
-        // 保存房间状态并广播更新
+        // 保存房间状态并广播更新，提交后为用户分配虚拟IP
         roomRepository.save(room);
-        broadcastRoomUpdate(room, "JOINED", username);
+        String networkId = room.getNetworkId();
+        afterCommit(() -> activeUserDirectory.setRoom(username, roomId));
+        afterCommit(() -> assignVirtualIp(username, networkId));
+        broadcastRoomUpdate(room, RoomEventType.JOINED, username);
 
         logger.info("用户 {} 加入了房间: {}", username, roomId);
         return true;
@@ -171,6 +236,10 @@ public class RoomService {
      * @return 离开成功返回true，否则返回false
      */
     public boolean leaveRoom(String username) {
+        return withConflictRetry("leave", () -> doLeaveRoom(username));
+    }
+
+    private boolean doLeaveRoom(String username) {
         // 验证用户并获取所在房间
         User user = userService.findByUsername(username);
         if (user == null) {
@@ -186,6 +255,7 @@ public class RoomService {
 
         Room room = userRooms.get(0);
         room.removePlayer(username);
+        afterCommit(() -> activeUserDirectory.setRoom(username, 0L));
 
         // 清理用户的虚拟网络资源
         cleanupUserNetworkResources(user, room.getNetworkId());
@@ -198,7 +268,7 @@ public class RoomService {
         }
 
         // 广播用户离开消息
-        broadcastRoomUpdate(room, "LEFT", username);
+        broadcastRoomUpdate(room, RoomEventType.LEFT, username);
         logger.info("用户 {} 离开了房间: {}", username, room.getId());
         return true;
     }
@@ -233,6 +303,10 @@ public class RoomService {
      * @return 开始成功返回true，否则返回false
      */
     public boolean startGame(String username, Long roomId) {
+        return withConflictRetry("start", () -> doStartGame(username, roomId));
+    }
+
+    private boolean doStartGame(String username, Long roomId) {
         // 验证房间和用户权限
         Room room = validateRoomOperation(username, roomId, Room.RoomStatus.WAITING);
         if (room == null) {
@@ -240,7 +314,7 @@ public class RoomService {
         }
 
         // 验证玩家数量
-        if (room.getPlayers().size() < 2) {
+        if (room.getPlayerCount() < 2) {
             logger.warn("用户 {} 尝试在玩家数量不足的房间 {} 中开始游戏", username, roomId);
             return false;
         }
@@ -250,14 +324,14 @@ public class RoomService {
         roomRepository.save(room);
 
         // 广播游戏开始消息
-        broadcastRoomUpdate(room, "STARTED", username);
+        broadcastRoomUpdate(room, RoomEventType.STARTED, username);
 
         // 发送系统消息
-        messageService.sendSystemMessage(
+        afterCommit(() -> messageService.sendSystemMessage(
                 MessageTarget.ROOM,
                 roomId,
                 "游戏已开始，祝大家游戏愉快！"
-        );
+        ));
 
         logger.info("房间 {} 的游戏已开始", roomId);
         return true;
@@ -271,6 +345,10 @@ public class RoomService {
      * @return 结束成功返回true，否则返回false
      */
     public boolean endGame(String username, Long roomId) {
+        return withConflictRetry("end", () -> doEndGame(username, roomId));
+    }
+
+    private boolean doEndGame(String username, Long roomId) {
         // 验证房间和用户权限
         Room room = validateRoomOperation(username, roomId, Room.RoomStatus.PLAYING);
         if (room == null) {
@@ -282,14 +360,14 @@ public class RoomService {
         roomRepository.save(room);
 
         // 广播游戏结束消息
-        broadcastRoomUpdate(room, "ENDED", username);
+        broadcastRoomUpdate(room, RoomEventType.ENDED, username);
 
         // 发送系统消息
-        messageService.sendSystemMessage(
+        afterCommit(() -> messageService.sendSystemMessage(
                 MessageTarget.ROOM,
                 roomId,
                 "游戏已结束，房间回到等待状态"
-        );
+        ));
 
         logger.info("房间 {} 的游戏已结束", roomId);
         return true;
@@ -329,97 +407,117 @@ public class RoomService {
     // ==================== 房间维护方法 ====================
 
     /**
-     * 清理空房间
-     * 定时任务中使用
+     * 启动完成后为已有房间登记定时器
+     * 重启前的空房间按保留时长删除；房间成员重启后均未连接，宽限期内未重新连接的移出房间。
+     * 多节点部署时房间成员可能连接在其他节点上，本节点不知道其断线时间，不登记移出定时器，
+     * 由玩家断开连接的节点登记
      */
-    public void cleanupEmptyRooms() {
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleExpiryTimers() {
         List<Room> emptyRooms = roomRepository.findEmptyRooms();
-        if (emptyRooms.isEmpty()) {
-            return;
-        }
-
-        logger.info("开始清理空房间，发现 {} 个空房间", emptyRooms.size());
-
         for (Room room : emptyRooms) {
-            logger.debug("清理空房间: ID={}, 名称={}, 创建时间={}",
-                    room.getId(), room.getName(), room.getCreationTime());
-
-            // 清理房间相关资源
-            cleanupRoomResources(room);
-
-            // 删除房间
-            deleteRoom(room.getId());
+            scheduleEmptyRoomCleanup(room.getId());
+        }
+        List<Object[]> members = presenceService.isClusterMode()
+                ? Collections.emptyList() : roomRepository.findAllRoomPlayers();
+        for (Object[] row : members) {
+            scheduleOfflineEviction((String) row[1]);
+        }
+        if (!emptyRooms.isEmpty() || !members.isEmpty()) {
+            logger.info("已为 {} 个空房间、{} 名房间成员登记到期定时器", emptyRooms.size(), members.size());
         }
+    }
 
-        logger.info("空房间清理完成，共清理 {} 个房间", emptyRooms.size());
+    /**
+     * 用户在线状态变化
+     * 房间中的玩家断线时登记移出定时器，宽限期内重新上线则取消
+     */
+    @EventListener
+    public void onPresenceChanged(PresenceChangedEvent event) {
+        String username = event.getUsername();
+        if (event.isOnline()) {
+            timingWheel.cancel(EVICT_TIMER_PREFIX + username);
+        } else if (activeUserDirectory.getRoomId(username) != 0) {
+            scheduleOfflineEviction(username);
+        }
     }
 
     /**
-     * 获取可加入的房间列表并清理无效房间
-     * 定时任务中使用
+     * 获取可加入的房间列表
+     * 结果来自查询缓存，房间变化时失效
      *
-     * @return 清理后的可加入房间列表
+     * @return 可加入的房间列表
      */
-    @Transactional
     public List<Room> getJoinableRooms() {
-        int offlineUsersRemoved = 0;
-        int emptyRoomsRemoved = 0;
-        List<Room> allRooms = roomRepository.findAll();
-        List<Room> roomsToDelete = new ArrayList<>();
-
-        // 检查所有房间
-        for (Room room : allRooms) {
-            boolean roomModified = false;
-            Set<String> offlineUsers = new HashSet<>();
-
-            // 检查每个房间内用户是否在线
-            for (String playerUsername : new HashSet<>(room.getPlayers())) {
-                User user = userService.findByUsername(playerUsername);
-                if (user == null || !userService.isUserActive(user)) {
-                    offlineUsers.add(playerUsername);
-                }
-            }
+        return roomRepository.findJoinableRooms();
+    }
 
-            // 从房间中移除所有离线用户
-            for (String offlineUsername : offlineUsers) {
-                room.removePlayer(offlineUsername);
-                roomModified = true;
-                offlineUsersRemoved++;
-                logger.debug("从房间 {} 中移除离线用户: {}", room.getId(), offlineUsername);
-
-                // 发送系统消息和广播更新
-                messageService.sendSystemMessage(
-                        MessageTarget.ROOM,
-                        room.getId(),
-                        "用户 " + offlineUsername + " 因长时间不活动已被系统移出房间"
-                );
-                broadcastRoomUpdate(room, "LEFT", offlineUsername);
-            }
+    private void scheduleOfflineEviction(String username) {
+        timingWheel.schedule(EVICT_TIMER_PREFIX + username, Duration.ofSeconds(roomEvictionGraceSeconds),
+                () -> evictOfflinePlayer(username));
+    }
 
-            // 判断房间是否为空
-            if (room.isEmpty()) {
-                roomsToDelete.add(room);
-            } else if (roomModified) {
-                roomRepository.save(room);
-            }
+    private void scheduleEmptyRoomCleanup(Long roomId) {
+        timingWheel.schedule(EMPTY_ROOM_TIMER_PREFIX + roomId, Duration.ofSeconds(emptyRoomTtlSeconds),
+                () -> cleanupEmptyRoom(roomId));
+    }
+
+    /**
+     * 将断线超过宽限期的玩家移出房间，房间因此变空时一并删除
+     * 定时器到期时执行，期间在任一节点上重新上线的玩家保留
+     *
+     * @param username 用户名
+     */
+    private void evictOfflinePlayer(String username) {
+        if (presenceService.getOfflineDuration(username).compareTo(Duration.ofSeconds(roomEvictionGraceSeconds)) < 0) {
+            return;
         }
+        withConflictRetry("evict", () -> doEvictOfflinePlayer(username));
+    }
 
-        // 删除所有空房间
-        for (Room room : roomsToDelete) {
-            cleanupRoomResources(room);
-            deleteRoom(room.getId());
-            emptyRoomsRemoved++;
+    private boolean doEvictOfflinePlayer(String username) {
+        List<Room> userRooms = roomRepository.findByPlayerUsername(username);
+        if (userRooms.isEmpty()) {
+            return false;
         }
 
-        // 如有清理操作，发送通知
-        if (offlineUsersRemoved > 0 || emptyRoomsRemoved > 0) {
-            String notification = String.format("系统自动清理: 移除了 %d 个离线用户, 删除了 %d 个空房间",
-                    offlineUsersRemoved, emptyRoomsRemoved);
-            logger.info(notification);
-            messageService.sendSystemMessage(MessageTarget.LOBBY, null, notification);
+        Room room = userRooms.get(0);
+        SystemNotificationAggregator notifications = messageService.createNotificationAggregator();
+        room.removePlayer(username);
+        afterCommit(() -> activeUserDirectory.setRoom(username, 0L));
+        notifications.add(MessageTarget.ROOM, room.getId(), "用户 " + username + " 因连接断开已被系统移出房间");
+        broadcastRoomUpdate(room, RoomEventType.LEFT, username);
+
+        if (room.isEmpty()) {
+            cleanupRoomResources(room);
+            deleteEmptyRooms(Collections.singletonList(room), notifications);
+        } else {
+            roomRepository.save(room);
         }
+        afterCommit(notifications::flush);
 
-        return roomRepository.findJoinableRooms();
+        logger.info("从房间 {} 中移除离线用户: {}", room.getId(), username);
+        return true;
+    }
+
+    /**
+     * 删除仍然为空的房间
+     * 房间清空后保留时长到期时执行，期间有玩家加入的房间保留
+     *
+     * @param roomId 房间ID
+     */
+    private void cleanupEmptyRoom(Long roomId) {
+        withConflictRetry("cleanup", () -> {
+            Room room = roomRepository.findById(roomId).orElse(null);
+            if (room == null || !room.isEmpty()) {
+                return 0;
+            }
+            SystemNotificationAggregator notifications = messageService.createNotificationAggregator();
+            cleanupRoomResources(room);
+            int deleted = deleteEmptyRooms(Collections.singletonList(room), notifications);
+            afterCommit(notifications::flush);
+            return deleted;
+        });
     }
 
     /**
@@ -427,8 +525,22 @@ public class RoomService {
      *
      * @param roomId 房间ID
      */
-    @Transactional
     public void deleteRoom(Long roomId) {
+        withConflictRetry("delete", () -> {
+            SystemNotificationAggregator notifications = messageService.createNotificationAggregator();
+            deleteRoom(roomId, notifications);
+            afterCommit(notifications::flush);
+            return null;
+        });
+    }
+
+    /**
+     * 删除房间，系统通知交由聚合器统一发送
+     *
+     * @param roomId 房间ID
+     * @param notifications 系统通知聚合器
+     */
+    private void deleteRoom(Long roomId, SystemNotificationAggregator notifications) {
         Room room = roomRepository.findById(roomId).orElse(null);
         if (room == null) {
             logger.debug("房间 {} 不存在或已被删除", roomId);
@@ -441,14 +553,11 @@ public class RoomService {
                 String roomName = room.getName();
 
                 // 执行删除
+                roomEventJournal.append(room, RoomEventType.DELETED, Collections.emptyList());
                 roomRepository.deleteById(roomId);
 
-                // 发送系统消息
-                messageService.sendSystemMessage(
-                        MessageTarget.LOBBY,
-                        null,
-                        "房间 \"" + roomName + "\" 已被系统清理"
-                );
+                // 记录系统消息
+                notifications.add(MessageTarget.LOBBY, null, "房间 \"" + roomName + "\" 已被系统清理");
 
                 logger.info("成功删除空房间: ID={}, 名称={}", roomId, roomName);
             } catch (Exception e) {
@@ -460,21 +569,101 @@ public class RoomService {
         }
     }
 
+    /**
+     * 批量删除空房间
+     * 以一条语句删除全部房间，删除时再次校验房间仍为空，期间有玩家加入的房间保留
+     *
+     * @param rooms 待删除的空房间
+     * @param notifications 系统通知聚合器
+     * @return 实际删除的房间数
+     */
+    private int deleteEmptyRooms(List<Room> rooms, SystemNotificationAggregator notifications) {
+        if (rooms.isEmpty()) {
+            return 0;
+        }
+        List<Long> roomIds = new ArrayList<>(rooms.size());
+        for (Room room : rooms) {
+            roomIds.add(room.getId());
+        }
+
+        int deleted = roomRepository.deleteEmptyRoomsByIdIn(roomIds);
+        Set<Long> remaining = new HashSet<>();
+        if (deleted < roomIds.size()) {
+            for (Room room : roomRepository.findAllById(roomIds)) {
+                remaining.add(room.getId());
+            }
+        }
+
+        for (Room room : rooms) {
+            if (remaining.contains(room.getId())) {
+                logger.debug("房间 {} 已有玩家加入，跳过删除", room.getId());
+                continue;
+            }
+            roomEventJournal.append(room, RoomEventType.DELETED, Collections.emptyList());
+            notifications.add(MessageTarget.LOBBY, null, "房间 \"" + room.getName() + "\" 已被系统清理");
+            logger.info("成功删除空房间: ID={}, 名称={}", room.getId(), room.getName());
+        }
+        return deleted;
+    }
+
+    /**
+     * 获取游戏的房间更新主题
+     * 游戏名转为小写，字母、数字、'-'和'_'以外的字符替换为'_'，
+     * 如 "Minecraft Java" 对应 /topic/rooms.updates.minecraft_java
+     *
+     * @param gameName 游戏名称
+     * @return 房间更新主题
+     */
+    public static String getRoomUpdatesTopic(String gameName) {
+        StringBuilder key = new StringBuilder();
+        if (gameName != null) {
+            gameName.trim().toLowerCase(Locale.ROOT).codePoints().forEach(codePoint -> {
+                if (Character.isLetterOrDigit(codePoint) || codePoint == '-' || codePoint == '_') {
+                    key.appendCodePoint(codePoint);
+                } else {
+                    key.append('_');
+                }
+            });
+        }
+        return GAME_ROOM_UPDATES_TOPIC_PREFIX + (key.length() > 0 ? key : "_");
+    }
+
     /**
      * 广播房间状态更新消息
      */
-    private void broadcastRoomUpdate(Room room, String action, String username) {
+    private void broadcastRoomUpdate(Room room, RoomEventType type, String username) {
+        broadcastRoomUpdate(room, type, Collections.singletonList(username));
+    }
+
+    /**
+     * 广播房间状态更新消息
+     * 多个用户同时变化时合并为一条更新，username为第一个用户，usernames为全部用户。
+     * 事件在当前事务中写入房间事件日志，广播在事务提交后发送，消息内容为提交后的房间状态
+     */
+    private void broadcastRoomUpdate(Room room, RoomEventType type, List<String> usernames) {
+        roomEventJournal.append(room, type, usernames);
+        afterCommit(() -> sendRoomUpdate(room, type.name(), usernames));
+    }
+
+    private void sendRoomUpdate(Room room, String action, List<String> usernames) {
         // 构建通用广播消息
         Map<String, Object> message = new HashMap<>();
         message.put("roomId", room.getId());
         message.put("action", action);
-        message.put("username", username);
+        message.put("username", usernames.get(0));
+        if (usernames.size() > 1) {
+            message.put("usernames", usernames);
+        }
         message.put("players", room.getPlayers());
         message.put("roomStatus", room.getStatus().name());
         message.put("timestamp", System.currentTimeMillis());
 
-        // 广播给所有连接的客户端
-        webSocketService.broadcastMessage("/topic/rooms.updates", message);
+        // 广播到该游戏的房间更新主题及公共主题，无人订阅的主题直接跳过；
+        // 携带房间ID头，慢会话的出站队列据此只保留每个房间的最新状态
+        Map<String, Object> headers = Collections.singletonMap(
+                OutboundBackpressureManager.ROOM_ID_HEADER, String.valueOf(room.getId()));
+        webSocketService.broadcastToSubscribers(getRoomUpdatesTopic(room.getGameName()), message, headers);
+        webSocketService.broadcastToSubscribers(ROOM_UPDATES_TOPIC, message, headers);
 
         // 给房间内的玩家发送详细信息
         Map<String, Object> detailMessage = new HashMap<>();
@@ -527,41 +716,69 @@ public class RoomService {
         return room;
     }
 
+    /**
+     * 为用户分配虚拟IP并写入用户记录
+     * 在房间事务提交后调用，IP分配不会因房间操作回滚而残留；用户记录在独立事务中更新
+     */
+    private void assignVirtualIp(String username, String networkId) {
+        try {
+            String virtualIp = networkService.assignIpAddress(username, networkId);
+            newTransactionTemplate.executeWithoutResult(status -> {
+                User user = userService.findByUsername(username);
+                if (user != null) {
+                    user.setVirtualIp(virtualIp);
+                    userService.updateUser(user);
+                }
+            });
+            logger.info("为用户 {} 分配虚拟IP: {}", username, virtualIp);
+        } catch (Exception e) {
+            logger.error("为用户 {} 分配虚拟IP时出错: {}", username, e.getMessage(), e);
+        }
+    }
+
     /**
      * 清理用户的网络资源
+     * 用户记录随事务更新，虚拟IP在提交后释放
      */
     private void cleanupUserNetworkResources(User user, String networkId) {
         if (user == null) return;
 
-        try {
-            // 释放用户的虚拟IP
-            networkService.removeIpAddress(user.getUsername(), networkId);
-            user.setVirtualIp(null);
-            user.setRoomId(0L);
-            userService.updateUser(user);
-            logger.info("已释放用户 {} 的虚拟IP", user.getUsername());
-        } catch (Exception e) {
-            logger.error("释放用户 {} 的虚拟IP时出错: {}", user.getUsername(), e.getMessage(), e);
-        }
+        user.setVirtualIp(null);
+        user.setRoomId(0L);
+        userService.updateUser(user);
+
+        String username = user.getUsername();
+        afterCommit(() -> {
+            try {
+                networkService.removeIpAddress(username, networkId);
+                logger.info("已释放用户 {} 的虚拟IP", username);
+            } catch (Exception e) {
+                logger.error("释放用户 {} 的虚拟IP时出错: {}", username, e.getMessage(), e);
+            }
+        });
     }
 
     /**
      * 处理房间变为空的情况
      */
     private void handleEmptyRoom(Room room) {
-        try {
-            // 删除虚拟网络
-            boolean deleted = networkService.deleteNetwork(room.getNetworkId());
-            if (deleted) {
-                logger.info("已删除房间 {} 的虚拟网络: {}", room.getId(), room.getNetworkId());
-            } else {
-                logger.warn("删除房间 {} 的虚拟网络 {} 失败", room.getId(), room.getNetworkId());
+        Long roomId = room.getId();
+        String networkId = room.getNetworkId();
+        afterCommit(() -> {
+            try {
+                // 删除虚拟网络
+                boolean deleted = networkService.deleteNetwork(networkId);
+                if (deleted) {
+                    logger.info("已删除房间 {} 的虚拟网络: {}", roomId, networkId);
+                } else {
+                    logger.warn("删除房间 {} 的虚拟网络 {} 失败", roomId, networkId);
+                }
+            } catch (Exception e) {
+                logger.error("删除房间 {} 的虚拟网络时出错: {}", roomId, e.getMessage(), e);
             }
-        } catch (Exception e) {
-            logger.error("删除房间 {} 的虚拟网络时出错: {}", room.getId(), e.getMessage(), e);
-        }
-
-        logger.info("房间 {} 已清空并将被删除", room.getId());
+        });
+        afterCommit(() -> scheduleEmptyRoomCleanup(roomId));
+        logger.info("房间 {} 已清空，{} 秒内无人加入将被删除", roomId, emptyRoomTtlSeconds);
     }
 
     /**
@@ -574,20 +791,20 @@ public class RoomService {
             room.setCreatorUsername(newCreator);
 
             // 发送系统消息通知房主变更
-            messageService.sendSystemMessage(
+            afterCommit(() -> messageService.sendSystemMessage(
                     MessageTarget.ROOM,
                     room.getId(),
                     "用户 " + username + " 离开了房间，" + newCreator + " 成为新房主"
-            );
+            ));
 
             logger.info("房间 {} 的房主权限已从 {} 转移给 {}", room.getId(), username, newCreator);
         } else {
             // 普通用户离开时发送通知
-            messageService.sendSystemMessage(
+            afterCommit(() -> messageService.sendSystemMessage(
                     MessageTarget.ROOM,
                     room.getId(),
                     "用户 " + username + " 离开了房间"
-            );
+            ));
         }
 
         roomRepository.save(room);
@@ -595,18 +812,124 @@ public class RoomService {
 
     /**
      * 清理房间相关资源
+     * 消息历史和虚拟网络在事务提交、房间确实删除后清理
      */
     private void cleanupRoomResources(Room room) {
         if (room == null) return;
 
-        // 清理消息历史
-        messageService.clearRoomMessageHistory(room.getId());
+        Long roomId = room.getId();
+        String networkId = room.getNetworkId();
+        afterCommit(() -> {
+            // 清理消息历史
+            messageService.clearRoomMessageHistory(roomId);
+
+            // 清理网络资源
+            try {
+                networkService.deleteNetwork(networkId);
+            } catch (Exception e) {
+                logger.error("清理房间 {} 的网络资源时出错: {}", roomId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 在独立事务中执行房间操作，房间版本冲突时重新读取并重做
+     * 重试时绕过二级缓存直接从数据库读取，避免再次读到本节点缓存中其他节点修改前的旧版本；
+     * 已处于外部事务中时只执行一次，冲突交由外部事务的调用方处理
+     *
+     * @param operation 操作名，用作指标标签
+     * @param action 房间操作，每次尝试都会完整执行
+     * @return 操作结果
+     */
+    private <T> T withConflictRetry(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            boolean retry = attempt > 1;
+            try {
+                return transactionTemplate.execute(status -> retry ? readThroughCache(action) : action.get());
+            } catch (OptimisticLockingFailureException e) {
+                conflictCounter("rooms.conflict", operation).increment();
+                if (attempt >= conflictMaxAttempts) {
+                    conflictCounter("rooms.conflict.exhausted", operation).increment();
+                    logger.warn("房间操作 {} 连续 {} 次发生并发冲突，放弃重试: {}", operation, attempt, e.getMessage());
+                    throw e;
+                }
+                conflictCounter("rooms.conflict.retries", operation).increment();
+                logger.debug("房间操作 {} 第 {} 次尝试发生并发冲突，准备重试", operation, attempt);
+                if (!backoff(attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Counter conflictCounter(String name, String operation) {
+        return Counter.builder(name)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 本次事务内读取实体时不使用二级缓存中的数据，读到的结果仍按缓存的并发控制写回缓存
+     */
+    private <T> T readThroughCache(Supplier<T> action) {
+        Session session = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory)
+                .unwrap(Session.class);
+        CacheMode previous = session.getCacheMode();
+        session.setCacheMode(CacheMode.REFRESH);
+        try {
+            return action.get();
+        } finally {
+            session.setCacheMode(previous);
+        }
+    }
 
-        // 清理网络资源
+    /**
+     * 重试前随机等待，线程被中断时返回false
+     */
+    private boolean backoff(int attempt) {
+        long bound = conflictBackoffMillis << Math.min(attempt - 1, 10);
         try {
-            networkService.deleteNetwork(room.getNetworkId());
-        } catch (Exception e) {
-            logger.error("清理房间 {} 的网络资源时出错: {}", room.getId(), e.getMessage());
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 在当前事务提交后执行，没有事务时立即执行
+     * 事务回滚时不执行，订阅者不会看到未生效的变化
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 在当前事务回滚后执行，用于撤销事务中已做的内存修改；没有事务时不执行
+     */
+    private void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package com.platform.service;
+
+import com.platform.entity.User;
+import com.platform.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 会话用户缓存
+ * <p>
+ * 缓存 会话ID -> 登录用户 的映射，避免每次请求或连接都按会话ID查询数据库。
+ * 缓存有容量上限(按最近访问淘汰)和过期时间，未登录的会话同样缓存以免重复查询。
+ * 登录、登出和会话ID变更时由 UserService 显式失效对应的会话。
+ * 未命中时先放入加载占位条目再查询数据库，查询结果只在占位条目仍在时写入，
+ * 查询期间发生的失效会移除占位条目，旧结果不会被缓存
+ * </p>
+ */
+@Service
+public class SessionUserCache {
+
+    /**
+     * 会话对应的登录用户，不可变
+     */
+    public static final class SessionUser {
+        private final Long userId;
+        private final String username;
+
+        public SessionUser(Long userId, String username) {
+            this.userId = userId;
+            this.username = username;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+    }
+
+    private static final class CacheEntry {
+        private final SessionUser user;
+        private final long expiresAt;
+
+        private CacheEntry(SessionUser user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @Value("${user.session.cache-ttl-seconds:300}")
+    private int ttlSeconds;
+
+    @Value("${user.session.cache-max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, CacheEntry> entries = Collections.synchronizedMap(
+            new LinkedHashMap<String, CacheEntry>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                    return size() > maxSize;
+                }
+            });
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final UserRepository userRepository;
+
+    @Autowired
+    public SessionUserCache(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * 解析会话对应的登录用户
+     *
+     * @param sessionId 会话ID
+     * @return 登录用户，会话未登录或用户已登出时返回null
+     */
+    public SessionUser resolve(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        CacheEntry entry = entries.get(sessionId);
+        if (entry != null && entry.expiresAt > now) {
+            hits.incrementAndGet();
+            return entry.user;
+        }
+
+        misses.incrementAndGet();
+        // 已过期的占位条目，其他线程读到时同样按未命中处理
+        CacheEntry loading = new CacheEntry(null, 0);
+        entries.put(sessionId, loading);
+        User user = userRepository.findBySessionId(sessionId);
+        SessionUser sessionUser = user != null && user.isActive()
+                ? new SessionUser(user.getId(), user.getUsername())
+                : null;
+        entries.replace(sessionId, loading, new CacheEntry(sessionUser, now + Duration.ofSeconds(ttlSeconds).toMillis()));
+        return sessionUser;
+    }
+
+    /**
+     * 使会话的缓存失效
+     *
+     * @param sessionId 会话ID
+     */
+    public void invalidate(String sessionId) {
+        if (sessionId != null) {
+            entries.remove(sessionId);
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 缓存条目数、命中和未命中次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+}
@@ -0,0 +1,105 @@
+package com.platform.service;
+
+import com.platform.enums.MessageTarget;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 系统通知聚合器
+ * <p>
+ * 在一次清理过程中收集系统通知，按频道(大厅、全局、各房间)合并，
+ * 结束时每个频道只发送一条汇总消息，避免批量清理刷屏并挤占消息历史
+ * </p>
+ * 非线程安全，每次清理过程应创建独立实例
+ */
+public class SystemNotificationAggregator {
+
+    private final MessageService messageService;
+    private final Map<String, ChannelNotifications> channels = new LinkedHashMap<>();
+
+    SystemNotificationAggregator(MessageService messageService) {
+        this.messageService = messageService;
+    }
+
+    /**
+     * 添加一条通知
+     *
+     * @param target  消息目标类型
+     * @param roomId  房间ID，非房间消息为null
+     * @param message 通知内容
+     */
+    public void add(MessageTarget target, Long roomId, String message) {
+        channel(target, roomId).items.add(message);
+    }
+
+    /**
+     * 设置频道汇总标题
+     * 频道有多条通知时作为汇总消息正文，没有其他通知时单独发送
+     *
+     * @param target   消息目标类型
+     * @param roomId   房间ID，非房间消息为null
+     * @param headline 汇总标题
+     */
+    public void setHeadline(MessageTarget target, Long roomId, String headline) {
+        channel(target, roomId).headline = headline;
+    }
+
+    /**
+     * 是否没有待发送的通知
+     */
+    public boolean isEmpty() {
+        return channels.isEmpty();
+    }
+
+    /**
+     * 发送所有频道的汇总通知并清空
+     *
+     * @return 实际发送的消息条数
+     */
+    public int flush() {
+        int sent = 0;
+        for (ChannelNotifications notifications : channels.values()) {
+            List<String> items = notifications.items;
+            String headline = notifications.headline;
+
+            if (items.isEmpty() && headline == null) {
+                continue;
+            }
+            if (items.size() == 1 && headline == null) {
+                messageService.sendSystemMessage(notifications.target, notifications.roomId, items.get(0));
+            } else if (items.isEmpty()) {
+                messageService.sendSystemMessage(notifications.target, notifications.roomId, headline);
+            } else {
+                String summary = headline != null ? headline : "系统通知 (共 " + items.size() + " 条)";
+                messageService.sendSystemSummary(notifications.target, notifications.roomId, summary, items);
+            }
+            sent++;
+        }
+        channels.clear();
+        return sent;
+    }
+
+    private ChannelNotifications channel(MessageTarget target, Long roomId) {
+        Long channelRoomId = target == MessageTarget.ROOM ? roomId : null;
+        String key = target.name() + ":" + channelRoomId;
+        return channels.computeIfAbsent(key, k -> new ChannelNotifications(target, channelRoomId));
+    }
+
+    /**
+     * 单个频道的待发送通知
+     */
+    private static final class ChannelNotifications {
+        private final MessageTarget target;
+        private final Long roomId;
+        private final List<String> items = new ArrayList<>();
+        private String headline;
+
+        private ChannelNotifications(MessageTarget target, Long roomId) {
+            this.target = target;
+            this.roomId = roomId;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.platform.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分层时间轮
+ * <p>
+ * 用户、房间、虚拟网络等对象按键登记到期回调，有活动时以同一个键重新登记即可顺延，
+ * 登记、顺延和取消都是常数时间，不需要定期扫描全部对象。
+ * 共4层，每层256个槽：第一层每槽一个刻度，上一层每槽覆盖下一层一整圈，
+ * 下一层转完一圈时把上一层对应槽中的定时器重新分配到下层。
+ * 刻度由定时任务推进，推进线程只把到期的回调交给专用的回调线程池，回调中的数据库操作和重试等待不会拖慢刻度；
+ * 到期后最迟约一个刻度加一次推进间隔提交，不会提前。
+ * 回调提交后同一个键可以重新登记，回调执行时应自行确认对象状态仍需处理
+ * </p>
+ */
+@Service
+public class TimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    // 可直接放入时间轮的最大刻度数，更远的定时器先放在最高层，逐层下移后再按实际到期刻度放置
+    private static final long MAX_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+    // 登记时长上限(约146年)，避免换算纳秒时溢出
+    private static final Duration MAX_DELAY = Duration.ofNanos(Long.MAX_VALUE / 2);
+
+    /**
+     * 定时器，以双向链表挂在所在的槽上，取消时直接摘除
+     */
+    private static final class Timeout {
+        final String key;
+        final Runnable task;
+        final long deadlineTick;
+        final long deadlineNanos;
+        Slot slot;
+        Timeout prev;
+        Timeout next;
+
+        Timeout(String key, Runnable task, long deadlineTick, long deadlineNanos) {
+            this.key = key;
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    /**
+     * 时间轮的一个槽
+     */
+    private static final class Slot {
+        Timeout head;
+        Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.slot = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.slot = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        // 摘下整个槽，返回链表头
+        Timeout detach() {
+            Timeout first = head;
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Slot[][] wheels = new Slot[LEVELS][SLOTS];
+    // 以下字段由 this 同步保护
+    private final Map<String, Timeout> timeouts = new HashMap<>();
+    // 下一个待处理的刻度
+    private long currentTick;
+    private long scheduled;
+    private long rearmed;
+    private long cancelled;
+    private long fired;
+    private long failed;
+    private long maxLateNanos;
+
+    private final Counter firedCounter;
+    private final ThreadPoolExecutor callbackExecutor;
+
+    @Autowired
+    public TimingWheel(@Value("${timing-wheel.tick-millis:100}") long tickMillis,
+                       @Value("${timing-wheel.callback-threads:2}") int callbackThreads,
+                       MeterRegistry meterRegistry) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(1, callbackThreads);
+        this.callbackExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "timing-wheel-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        for (int level = 0; level < LEVELS; level++) {
+            for (int index = 0; index < SLOTS; index++) {
+                wheels[level][index] = new Slot();
+            }
+        }
+        Gauge.builder("timing.wheel.pending", this, TimingWheel::getPendingCount)
+                .description("时间轮中等待到期的定时器数")
+                .register(meterRegistry);
+        this.firedCounter = Counter.builder("timing.wheel.fired")
+                .description("时间轮中已到期执行的定时器数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 登记到期回调
+     * 同一个键已有定时器时替换为新的到期时间和回调
+     *
+     * @param key 定时器的键，如 "room.evict:alice"
+     * @param delay 距到期的时长
+     * @param task 到期回调，在回调线程池中执行，可以访问数据库
+     */
+    public void schedule(String key, Duration delay, Runnable task) {
+        long delayNanos = delay.isNegative() ? 0 : delay.compareTo(MAX_DELAY) > 0 ? MAX_DELAY.toNanos() : delay.toNanos();
+        long now = System.nanoTime();
+        long deadlineNanos = now + delayNanos;
+        // 向上取整，保证不会提前触发
+        long deadlineTick = (now - startNanos + delayNanos + tickNanos - 1) / tickNanos;
+        synchronized (this) {
+            Timeout previous = timeouts.get(key);
+            if (previous != null) {
+                previous.slot.remove(previous);
+                rearmed++;
+            } else {
+                scheduled++;
+            }
+            Timeout timeout = new Timeout(key, task, deadlineTick, deadlineNanos);
+            timeouts.put(key, timeout);
+            place(timeout);
+        }
+    }
+
+    /**
+     * 取消定时器
+     *
+     * @param key 定时器的键
+     * @return 定时器存在且尚未到期时返回true
+     */
+    public synchronized boolean cancel(String key) {
+        Timeout timeout = timeouts.remove(key);
+        if (timeout == null) {
+            return false;
+        }
+        timeout.slot.remove(timeout);
+        cancelled++;
+        return true;
+    }
+
+    /**
+     * 判断定时器是否仍在等待到期
+     *
+     * @param key 定时器的键
+     * @return 是否存在
+     */
+    public synchronized boolean isScheduled(String key) {
+        return timeouts.containsKey(key);
+    }
+
+    /**
+     * 推进时间轮到当前时间，把所有已到期的回调提交到回调线程池
+     * 由定时任务按刻度间隔调用，推进延迟时一次补齐错过的刻度
+     *
+     * @return 本次提交的回调数
+     */
+    public int advance() {
+        long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (this) {
+            while (currentTick <= targetTick) {
+                int index = (int) (currentTick & SLOT_MASK);
+                if (index == 0) {
+                    // 第一层转完一圈，逐层把上层当前槽的定时器分配下来
+                    int level = 1;
+                    while (level < LEVELS && cascade(level)) {
+                        level++;
+                    }
+                }
+                Timeout timeout = wheels[0][index].detach();
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    timeout.slot = null;
+                    timeout.prev = null;
+                    timeout.next = null;
+                    if (timeout.deadlineTick > currentTick) {
+                        place(timeout);
+                    } else {
+                        timeouts.remove(timeout.key);
+                        expired.add(timeout);
+                    }
+                    timeout = next;
+                }
+                currentTick++;
+            }
+        }
+
+        for (Timeout timeout : expired) {
+            try {
+                callbackExecutor.execute(() -> fire(timeout));
+            } catch (RejectedExecutionException e) {
+                logger.debug("时间轮已停止，丢弃定时器 {} 的到期回调", timeout.key);
+            }
+        }
+        return expired.size();
+    }
+
+    /**
+     * 停机时不再接收新的回调，等待已提交的回调执行完毕
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        callbackExecutor.shutdown();
+        if (!callbackExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("时间轮回调线程池未能在10秒内停止，剩余 {} 个回调未执行", callbackExecutor.getQueue().size());
+        }
+    }
+
+    /**
+     * 获取等待到期的定时器数
+     *
+     * @return 定时器数
+     */
+    public synchronized int getPendingCount() {
+        return timeouts.size();
+    }
+
+    /**
+     * 获取时间轮统计信息
+     *
+     * @return 刻度、等待中和已到期待执行的定时器数、登记/顺延/取消/到期次数及最大执行延迟
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tickMillis", TimeUnit.NANOSECONDS.toMillis(tickNanos));
+        stats.put("pending", timeouts.size());
+        stats.put("callbackThreads", callbackExecutor.getMaximumPoolSize());
+        stats.put("queued", callbackExecutor.getQueue().size());
+        stats.put("running", callbackExecutor.getActiveCount());
+        stats.put("scheduled", scheduled);
+        stats.put("rearmed", rearmed);
+        stats.put("cancelled", cancelled);
+        stats.put("fired", fired);
+        stats.put("failed", failed);
+        stats.put("maxLateMillis", TimeUnit.NANOSECONDS.toMillis(maxLateNanos));
+        return stats;
+    }
+
+    /**
+     * 在回调线程池中执行到期回调，记录从到期到开始执行的延迟
+     */
+    private void fire(Timeout timeout) {
+        long lateNanos = System.nanoTime() - timeout.deadlineNanos;
+        boolean success = true;
+        try {
+            timeout.task.run();
+        } catch (Exception e) {
+            success = false;
+            logger.error("定时器 {} 的到期回调执行失败: {}", timeout.key, e.getMessage(), e);
+        }
+        firedCounter.increment();
+        synchronized (this) {
+            fired++;
+            if (!success) {
+                failed++;
+            }
+            maxLateNanos = Math.max(maxLateNanos, lateNanos);
+        }
+    }
+
+    /**
+     * 按距到期的刻度数放入对应层的槽，已到期的放入当前槽，下次推进时执行
+     */
+    private void place(Timeout timeout) {
+        long ticks = timeout.deadlineTick - currentTick;
+        long expiry = timeout.deadlineTick;
+        if (ticks < 0) {
+            wheels[0][(int) (currentTick & SLOT_MASK)].add(timeout);
+            return;
+        }
+        if (ticks > MAX_TICKS) {
+            ticks = MAX_TICKS;
+            expiry = currentTick + MAX_TICKS;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && ticks >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        wheels[level][(int) ((expiry >> (SLOT_BITS * level)) & SLOT_MASK)].add(timeout);
+    }
+
+    /**
+     * 把指定层当前槽中的定时器重新放入下层
+     *
+     * @return 该层的当前槽是否为第0槽，是则上一层也需要分配
+     */
+    private boolean cascade(int level) {
+        int index = (int) ((currentTick >> (SLOT_BITS * level)) & SLOT_MASK);
+        Timeout timeout = wheels[level][index].detach();
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.slot = null;
+            timeout.prev = null;
+            timeout.next = null;
+            place(timeout);
+            timeout = next;
+        }
+        return index == 0;
+    }
+}
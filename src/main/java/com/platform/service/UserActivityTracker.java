@@ -0,0 +1,140 @@
+package com.platform.service;
+
+import com.platform.config.EntityCacheProperties;
+import com.platform.entity.User;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户活动跟踪服务
+ * <p>
+ * 心跳和用户请求只在内存中更新最后活动时间，不直接访问数据库。
+ * 有变化的记录由定时任务批量写回 users.last_active_time，
+ * 每个用户在一个刷新周期内最多写一次数据库。
+ * 写回只更新活动时间，不改动活跃标记，登录状态只由登录和登出决定。
+ * 写回绕过了Hibernate，写回后从二级缓存中驱逐对应的用户实体
+ * </p>
+ */
+@Service
+public class UserActivityTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserActivityTracker.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE users SET last_active_time = ? WHERE username = ?";
+
+    @Value("${user.activity.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    // 尚未写回数据库的用户名 -> 最后活动时间(毫秒)
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityCacheProperties entityCacheProperties;
+
+    @Autowired
+    public UserActivityTracker(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                               EntityCacheProperties entityCacheProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityCacheProperties = entityCacheProperties;
+    }
+
+    /**
+     * 记录用户活动
+     *
+     * @param username 用户名
+     */
+    public void touch(String username) {
+        pending.put(username, System.currentTimeMillis());
+    }
+
+    /**
+     * 移除用户的活动记录
+     * 用户登出时调用，丢弃尚未写回的活动时间
+     *
+     * @param username 用户名
+     */
+    public void forget(String username) {
+        pending.remove(username);
+    }
+
+    /**
+     * 将待写回的活动时间批量更新到数据库
+     *
+     * @return 写回的用户数量
+     */
+    public int flush() {
+        List<Map.Entry<String, Long>> snapshot = new ArrayList<>(pending.entrySet());
+        int flushed = 0;
+        for (int from = 0; from < snapshot.size(); from += flushBatchSize) {
+            List<Map.Entry<String, Long>> chunk = snapshot.subList(from, Math.min(from + flushBatchSize, snapshot.size()));
+            List<Object[]> args = new ArrayList<>(chunk.size());
+            for (Map.Entry<String, Long> entry : chunk) {
+                args.add(new Object[]{Timestamp.from(Instant.ofEpochMilli(entry.getValue())), entry.getKey()});
+            }
+            try {
+                jdbcTemplate.batchUpdate(FLUSH_SQL, args);
+            } catch (Exception e) {
+                // 保留未写回的记录，下个周期重试
+                logger.error("写回用户活动时间失败: {}", e.getMessage(), e);
+                return flushed;
+            }
+            List<String> usernames = new ArrayList<>(chunk.size());
+            for (Map.Entry<String, Long> entry : chunk) {
+                // 写回期间有新的活动则保留，留待下次写回
+                pending.remove(entry.getKey(), entry.getValue());
+                usernames.add(entry.getKey());
+            }
+            evictCachedUsers(usernames);
+            flushed += chunk.size();
+        }
+
+        if (flushed > 0) {
+            logger.debug("已写回 {} 个用户的活动时间", flushed);
+        }
+        return flushed;
+    }
+
+    /**
+     * 从二级缓存中驱逐已写回的用户，下次读取时从数据库加载最新的活动时间
+     */
+    private void evictCachedUsers(List<String> usernames) {
+        if (!entityCacheProperties.isEnabled()) {
+            return;
+        }
+        try {
+            String placeholders = String.join(",", Collections.nCopies(usernames.size(), "?"));
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM users WHERE username IN (" + placeholders + ")", Long.class, usernames.toArray());
+            for (Long id : ids) {
+                entityManagerFactory.getCache().evict(User.class, id);
+            }
+        } catch (Exception e) {
+            logger.error("驱逐用户二级缓存失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 关闭前写回所有待更新记录
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
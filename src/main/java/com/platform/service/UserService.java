@@ -5,13 +5,8 @@ import com.platform.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.List;
-
 /**
  * 用户服务
  * 负责用户账号管理、认证、会话维护和状态监控
@@ -21,17 +16,21 @@ public class UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
-    @Value("${user.session.timeout-minutes:30}")
-    private int userTimeoutMinutes;
-
     private final UserRepository userRepository;
     private final WebSocketService webSocketService;
+    private final UserActivityTracker activityTracker;
+    private final PresenceService presenceService;
+    private final SessionUserCache sessionUserCache;
 
     @Autowired
     public UserService(UserRepository userRepository, WebSocketService webSocketService,
-                       VirtualNetworkFactory virtualNetworkFactory) {
+                       VirtualNetworkFactory virtualNetworkFactory, UserActivityTracker activityTracker,
+                       PresenceService presenceService, SessionUserCache sessionUserCache) {
         this.userRepository = userRepository;
         this.webSocketService = webSocketService;
+        this.activityTracker = activityTracker;
+        this.presenceService = presenceService;
+        this.sessionUserCache = sessionUserCache;
     }
 
     /**
@@ -64,15 +63,6 @@ public class UserService {
         return userRepository.findBySessionId(sessionId);
     }
 
-    /**
-     * 获取所有活跃用户
-     *
-     * @return 活跃用户列表
-     */
-    public List<User> getAllActiveUsers() {
-        return userRepository.findAllActiveUsers();
-    }
-
     /**
      * 注册新用户
      *
@@ -90,6 +80,8 @@ public class UserService {
 
         User user = new User(username, password, clientAddress, sessionId);
         User savedUser = userRepository.save(user);
+        sessionUserCache.invalidate(sessionId);
+        presenceService.markLoggedIn(username);
 
         // 广播用户上线通知
         webSocketService.sendUserStatusUpdate(savedUser, true);
@@ -129,11 +121,15 @@ public class UserService {
      * @return 更新后的用户对象
      */
     public User updateUserSession(User existingUser, String clientAddress, String sessionId) {
+        String previousSessionId = existingUser.getSessionId();
         existingUser.setSessionId(sessionId);
         existingUser.setClientAddress(clientAddress);
         existingUser.updateLastActiveTime();
         existingUser.setActive(true);
         User updatedUser = userRepository.save(existingUser);
+        sessionUserCache.invalidate(previousSessionId);
+        sessionUserCache.invalidate(sessionId);
+        presenceService.markLoggedIn(existingUser.getUsername());
 
         // 广播用户上线通知
         webSocketService.sendUserStatusUpdate(updatedUser, true);
@@ -153,35 +149,31 @@ public class UserService {
     public boolean updateUserSessionId(Long userId, String newSessionId) {
         User user = userRepository.findById(userId).orElse(null);
         if (user != null) {
+            String previousSessionId = user.getSessionId();
             user.setSessionId(newSessionId);
             user.updateLastActiveTime();
             userRepository.save(user);
+            sessionUserCache.invalidate(previousSessionId);
+            sessionUserCache.invalidate(newSessionId);
             return true;
         }
         return false;
     }
 
     /**
-     * 更新用户活动时间
-     * 用户活动时调用，延长会话有效期
+     * 记录用户活动时间
+     * 心跳及用户请求时调用，延长会话有效期。
+     * 只更新内存记录，由定时任务批量写回数据库
      *
-     * @param sessionId 会话ID
-     * @return 更新后的用户对象，会话不存在则返回null
+     * @param username 用户名
      */
-    public User updateUserActivity(String sessionId) {
-        User user = userRepository.findBySessionId(sessionId);
-        if (user != null) {
-            user.updateLastActiveTime();
-            user.setActive(true);  // 确保用户状态为活跃
-            return userRepository.save(user);
-        } else {
-            logger.warn("尝试更新不存在的用户会话: {}", sessionId);
-            return null;
-        }
+    public void recordActivity(String username) {
+        activityTracker.touch(username);
     }
 
     /**
      * 用户退出登录
+     * 清除用户的会话ID，旧会话此后无法再解析到该用户
      *
      * @param sessionId 会话ID
      * @return 退出操作是否成功
@@ -189,8 +181,12 @@ public class UserService {
     public boolean logoutUser(String sessionId) {
         User user = userRepository.findBySessionId(sessionId);
         if (user != null) {
+            activityTracker.forget(user.getUsername());
+            presenceService.markLoggedOut(user.getUsername());
             user.setActive(false);
+            user.setSessionId(null);
             userRepository.save(user);
+            sessionUserCache.invalidate(sessionId);
             logger.info("用户登出: {}", user.getUsername());
             return true;
         }
@@ -198,33 +194,21 @@ public class UserService {
     }
 
     /**
-     * 判断用户是否活跃
-     * 基于用户活跃标志及最后活动时间
+     * 判断用户是否在线
+     * 以WebSocket连接状态为准，由在线状态服务维护。
+     * 多节点部署时登录宽限期只记录在处理登录请求的节点上，另以数据库中的登录状态和活动时间判断
      *
      * @param user 用户对象
-     * @return 用户是否处于活跃状态
+     * @return 用户是否在线
      */
     public boolean isUserActive(User user) {
-        if (user == null) return false;
-        return user.isActive() &&
-                Duration.between(user.getLastActiveTime(), Instant.now())
-                        .compareTo(Duration.ofMinutes(userTimeoutMinutes)) <= 0;
-    }
-
-    /**
-     * 清理长期不活跃的用户
-     * 定时任务每月执行
-     */
-    public void cleanupInactiveUsers() {
-        Instant cutoffTime = Instant.now().minus(Duration.ofDays(180)); // 半年不活跃的用户
-
-        // 记录清理前的活跃用户数
-        int activeUsers = userRepository.findAllActiveUsers().size();
-
-        // 执行清理 - 直接删除不活跃用户
-        int deletedCount = userRepository.deleteInactiveUsers(cutoffTime);
-
-        logger.info("清理不活跃用户完成，截止时间: {}，清理前活跃用户: {}，删除用户数: {}",
-                cutoffTime, activeUsers, deletedCount);
+        if (user == null) {
+            return false;
+        }
+        if (presenceService.isOnlineInCluster(user.getUsername())) {
+            return true;
+        }
+        return presenceService.isClusterMode() && user.isActive()
+                && presenceService.isWithinLoginGrace(user.getLastActiveTime());
     }
-}
\ No newline at end of file
+}
@@ -5,9 +5,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -107,64 +104,4 @@ public class VirtualNetworkFactory {
             logger.error("检查虚拟网络状态时发生错误: {}", e.getMessage(), e);
         }
     }
-
-    /**
-     * 清理所有未使用的虚拟网络
-     * 遍历所有网络服务，清理没有活跃用户的网络
-     */
-    public void cleanupUnusedNetworks() {
-        Map<String, VirtualNetworkService> services = getAllServices();
-        for (Map.Entry<String, VirtualNetworkService> entry : services.entrySet()) {
-            String networkType = entry.getKey();
-            VirtualNetworkService service = entry.getValue();
-
-            try {
-                Map<String, Object> networkStats = service.getNetworkInfo(null);
-                if (networkStats == null || !networkStats.containsKey("networks")) {
-                    continue;
-                }
-
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> networks = (List<Map<String, Object>>) networkStats.get("networks");
-                int cleanedCount = cleanInactiveNetworks(networks, service, networkType);
-
-                if (cleanedCount > 0) {
-                    logger.info("{}网络清理完成，共清理 {} 个未使用网络", networkType, cleanedCount);
-                } else {
-                    logger.debug("{}网络清理完成，未发现需要清理的网络", networkType);
-                }
-            } catch (Exception e) {
-                logger.error("清理{}网络资源时发生错误: {}", networkType, e.getMessage(), e);
-            }
-        }
-    }
-
-    /**
-     * 清理不活跃的网络资源
-     *
-     * @param networks 网络列表
-     * @param service 虚拟网络服务
-     * @param networkType 网络类型
-     * @return 已清理的网络数量
-     */
-    private int cleanInactiveNetworks(List<Map<String, Object>> networks, VirtualNetworkService service, String networkType) {
-        int cleanedCount = 0;
-        // 设置清理阈值：24小时未活动的网络将被清理
-        Instant threshold = Instant.now().minus(24, ChronoUnit.HOURS);
-
-        for (Map<String, Object> network : networks) {
-            String networkId = (String) network.get("networkId");
-            Instant lastActive = (Instant) network.get("lastActiveTime");
-            int userCount = (Integer) network.getOrDefault("activeUsers", 0);
-
-            // 只清理没有活跃用户且超过阈值时间的网络
-            if (userCount == 0 && lastActive != null && lastActive.isBefore(threshold)) {
-                if (service.deleteNetwork(networkId)) {
-                    cleanedCount++;
-                    logger.info("已清理未使用的{}网络: {}, 最后活跃时间: {}", networkType, networkId, lastActive);
-                }
-            }
-        }
-        return cleanedCount;
-    }
-}
\ No newline at end of file
+}
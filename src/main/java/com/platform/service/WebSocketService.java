@@ -1,5 +1,7 @@
 package com.platform.service;
 
+import com.platform.config.StompMetrics;
+import com.platform.config.SubscriptionInterestTracker;
 import com.platform.entity.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,10 +24,15 @@ public class WebSocketService {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketService.class);
     private final SimpMessagingTemplate messagingTemplate;
+    private final SubscriptionInterestTracker interestTracker;
+    private final StompMetrics stompMetrics;
 
     @Autowired
-    public WebSocketService(SimpMessagingTemplate messagingTemplate) {
+    public WebSocketService(SimpMessagingTemplate messagingTemplate, SubscriptionInterestTracker interestTracker,
+                            StompMetrics stompMetrics) {
         this.messagingTemplate = messagingTemplate;
+        this.interestTracker = interestTracker;
+        this.stompMetrics = stompMetrics;
     }
 
     /**
@@ -47,12 +54,54 @@ public class WebSocketService {
      * @param payload 消息内容
      */
     public void broadcastMessage(String destination, Object payload) {
+        publish(destination, payload, null);
+    }
+
+    /**
+     * 向有订阅者的目的地广播消息
+     * 目的地当前无人订阅时直接跳过，避免无效的序列化和分发
+     *
+     * @param destination 目标路径
+     * @param payload 消息内容
+     * @return 是否已发布
+     */
+    public boolean broadcastToSubscribers(String destination, Object payload) {
+        return broadcastToSubscribers(destination, payload, null);
+    }
+
+    /**
+     * 向有订阅者的目的地广播消息，并附带自定义STOMP头
+     *
+     * @param destination 目标路径
+     * @param payload 消息内容
+     * @param headers 自定义STOMP头，可为null
+     * @return 是否已发布
+     */
+    public boolean broadcastToSubscribers(String destination, Object payload, Map<String, Object> headers) {
+        if (!interestTracker.shouldPublish(destination)) {
+            logger.trace("目的地 {} 无订阅者，跳过广播", destination);
+            return false;
+        }
+        publish(destination, payload, headers);
+        return true;
+    }
+
+    /**
+     * 发布广播并记录发布耗时和本地扇出规模
+     */
+    private void publish(String destination, Object payload, Map<String, Object> headers) {
+        long start = System.nanoTime();
         try {
-            messagingTemplate.convertAndSend(destination, payload);
+            if (headers == null) {
+                messagingTemplate.convertAndSend(destination, payload);
+            } else {
+                messagingTemplate.convertAndSend(destination, payload, headers);
+            }
             logger.debug("消息已广播到 {}: {}", destination, payload);
         } catch (Exception e) {
             logger.error("广播消息到 {} 失败: {}", destination, e.getMessage(), e);
         }
+        stompMetrics.recordBroadcast(interestTracker.getSubscriberCount(destination), System.nanoTime() - start);
     }
 
     /**
@@ -63,8 +112,18 @@ public class WebSocketService {
      * @param online 是否在线
      */
     public void sendUserStatusUpdate(User user, boolean online) {
+        sendUserStatusUpdate(user.getUsername(), online);
+    }
+
+    /**
+     * 发送用户状态更新通知
+     *
+     * @param username 发生状态变化的用户名
+     * @param online 是否在线
+     */
+    public void sendUserStatusUpdate(String username, boolean online) {
         Map<String, Object> status = createBaseMessage();
-        status.put("username", user.getUsername());
+        status.put("username", username);
         status.put("online", online);
 
         broadcastMessage("/topic/users.status", status);
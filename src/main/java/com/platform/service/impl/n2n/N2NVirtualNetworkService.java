@@ -2,10 +2,12 @@ package com.platform.service.impl.n2n;
 
 import com.platform.config.N2nConfig;
 import com.platform.entity.NetworkInfo;
+import com.platform.service.TimingWheel;
 import com.platform.service.impl.AbstractVirtualNetworkService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -16,27 +18,38 @@ import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * N2N虚拟网络服务实现
- * 通过N2N技术创建和管理虚拟网络连接，支持P2P通信
+ * 通过N2N技术创建和管理虚拟网络连接，支持P2P通信。
+ * 网络创建或分配IP时在时间轮中登记闲置定时器，到期时仍无用户的网络被删除
  */
 @Service("N2N")
 public class N2NVirtualNetworkService extends AbstractVirtualNetworkService {
 
     private static final Logger logger = LoggerFactory.getLogger(N2NVirtualNetworkService.class);
 
+    // 闲置网络定时器的键前缀
+    private static final String IDLE_TIMER_PREFIX = "network.idle:";
+
     private final Map<String, NetworkInfo> networksMap = new ConcurrentHashMap<>();
     private final Map<String, String> ipAssignments = new ConcurrentHashMap<>();
 
     private final N2nConfig n2nConfig;
+    private final TimingWheel timingWheel;
+
+    // 没有用户且超过该时长未活动的网络将被删除
+    @Value("${virtual.network.idle-timeout-hours:24}")
+    private int idleTimeoutHours;
 
     @Autowired
-    public N2NVirtualNetworkService(N2nConfig n2nConfig) {
+    public N2NVirtualNetworkService(N2nConfig n2nConfig, TimingWheel timingWheel) {
         this.n2nConfig = n2nConfig;
+        this.timingWheel = timingWheel;
     }
 
     @Override
@@ -60,6 +73,7 @@ public class N2NVirtualNetworkService extends AbstractVirtualNetworkService {
         networkInfo.setSupernode(supernode);
 
         networksMap.put(networkId, networkInfo);
+        scheduleIdleExpiry(networkInfo);
 
         logger.info("创建N2N虚拟网络: {}, 子网: {}", networkId, networkInfo.getSubnet());
         return networkId;
@@ -74,6 +88,7 @@ public class N2NVirtualNetworkService extends AbstractVirtualNetworkService {
 
         // 移除网络信息
         networksMap.remove(networkId);
+        timingWheel.cancel(IDLE_TIMER_PREFIX + networkId);
 
         // 清理该网络的所有IP分配
         ipAssignments.entrySet().removeIf(entry -> entry.getKey().startsWith(networkId + "_"));
@@ -119,6 +134,7 @@ public class N2NVirtualNetworkService extends AbstractVirtualNetworkService {
 
             // 更新网络活动时间
             networkInfo.setLastActiveTime(Instant.now());
+            scheduleIdleExpiry(networkInfo);
 
             logger.info("为用户 {} 在网络 {} 中分配IP: {}", username, networkId, ip);
             return ip;
@@ -136,6 +152,11 @@ public class N2NVirtualNetworkService extends AbstractVirtualNetworkService {
 
         if (ip != null) {
             logger.info("从网络 {} 中移除用户 {} 的IP: {}", networkId, username, ip);
+            // 最后一个用户离开后从最后活动时间起计算闲置时长
+            NetworkInfo networkInfo = networksMap.get(networkId);
+            if (networkInfo != null) {
+                scheduleIdleExpiry(networkInfo);
+            }
             return true;
         }
 
@@ -186,6 +207,39 @@ public class N2NVirtualNetworkService extends AbstractVirtualNetworkService {
         return n2nConfig.getSupernode();
     }
 
+    /**
+     * 登记闲置定时器，在最后活动时间之后闲置时长到期
+     */
+    private void scheduleIdleExpiry(NetworkInfo networkInfo) {
+        String networkId = networkInfo.getNetworkId();
+        Instant idleAt = networkInfo.getLastActiveTime().plus(Duration.ofHours(idleTimeoutHours));
+        timingWheel.schedule(IDLE_TIMER_PREFIX + networkId, Duration.between(Instant.now(), idleAt),
+                () -> expireIdleNetwork(networkId));
+    }
+
+    /**
+     * 闲置定时器到期
+     * 仍有用户的网络保留，待最后一个用户离开时重新登记；期间有新活动的按新的活动时间重新登记
+     */
+    private void expireIdleNetwork(String networkId) {
+        NetworkInfo networkInfo = networksMap.get(networkId);
+        if (networkInfo == null) {
+            return;
+        }
+        boolean hasUsers = ipAssignments.keySet().stream().anyMatch(key -> key.startsWith(networkId + "_"));
+        if (hasUsers) {
+            return;
+        }
+        Instant lastActive = networkInfo.getLastActiveTime();
+        if (lastActive.plus(Duration.ofHours(idleTimeoutHours)).isAfter(Instant.now())) {
+            scheduleIdleExpiry(networkInfo);
+            return;
+        }
+        if (deleteNetwork(networkId)) {
+            logger.info("已清理未使用的N2N网络: {}, 最后活跃时间: {}", networkId, lastActive);
+        }
+    }
+
     /**
      * 获取所有网络的概览信息
      */
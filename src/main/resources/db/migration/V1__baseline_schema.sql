@@ -0,0 +1,39 @@
+-- 基线结构，与最初版本由 ddl-auto=update 生成的结构一致
+-- 已有数据库由 Flyway 以本版本为基线，不再执行本脚本；此后新增的结构一律放在后续版本中
+
+CREATE TABLE users (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    username         VARCHAR(255) NOT NULL,
+    password         VARCHAR(255) NOT NULL,
+    client_address   VARCHAR(255),
+    session_id       VARCHAR(255),
+    last_active_time TIMESTAMP(6) WITH TIME ZONE,
+    virtual_ip       VARCHAR(255),
+    is_active        BOOLEAN,
+    room_id          BIGINT,
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_session_id UNIQUE (session_id)
+);
+
+CREATE TABLE rooms (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name             VARCHAR(255) NOT NULL,
+    game_name        VARCHAR(255) NOT NULL,
+    max_players      INTEGER,
+    creation_time    TIMESTAMP(6) WITH TIME ZONE,
+    creator_username VARCHAR(255),
+    room_status      VARCHAR(255),
+    network_id       VARCHAR(255),
+    network_name     VARCHAR(255),
+    network_secret   VARCHAR(255),
+    network_type     VARCHAR(255),
+    CONSTRAINT pk_rooms PRIMARY KEY (id),
+    CONSTRAINT ck_rooms_status CHECK (room_status IN ('WAITING', 'PLAYING', 'FINISHED'))
+);
+
+CREATE TABLE room_players (
+    room_id  BIGINT NOT NULL,
+    username VARCHAR(255),
+    CONSTRAINT fk_room_players_room FOREIGN KEY (room_id) REFERENCES rooms (id)
+);
@@ -0,0 +1,40 @@
+-- 基线之后新增的结构和热点查询索引
+-- 以V1为基线的已有数据库可能已由后来版本的 ddl-auto=update 建出其中一部分，语句均可重复执行
+
+-- 分块清理任务的断点
+CREATE TABLE IF NOT EXISTS job_checkpoints (
+    job_name    VARCHAR(64) NOT NULL,
+    cursor_id   BIGINT,
+    cutoff_time TIMESTAMP(6) WITH TIME ZONE,
+    processed   BIGINT,
+    started_at  TIMESTAMP(6) WITH TIME ZONE,
+    updated_at  TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT pk_job_checkpoints PRIMARY KEY (job_name)
+);
+
+-- 房间成员: 加入时间、房间人数
+ALTER TABLE room_players ADD COLUMN IF NOT EXISTS joined_at TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE rooms ADD COLUMN IF NOT EXISTS player_count INTEGER DEFAULT 0 NOT NULL;
+
+-- 一个用户只能在一个房间内。基线版本可能遗留空用户名或同一用户的多条记录，保留房间ID最大的一条
+DELETE FROM room_players WHERE username IS NULL;
+DELETE FROM room_players p
+WHERE EXISTS (SELECT 1 FROM room_players q WHERE q.username = p.username AND q.room_id > p.room_id);
+ALTER TABLE room_players ALTER COLUMN username SET NOT NULL;
+-- 用户名唯一，(room_id, username) 随之唯一
+CREATE UNIQUE INDEX IF NOT EXISTS idx_room_players_username ON room_players (username);
+
+-- 按状态和游戏查询可加入的房间
+CREATE INDEX IF NOT EXISTS idx_rooms_joinable ON rooms (room_status, game_name, player_count);
+
+UPDATE rooms r SET player_count = (SELECT COUNT(*) FROM room_players p WHERE p.room_id = r.id)
+WHERE player_count <> (SELECT COUNT(*) FROM room_players p WHERE p.room_id = r.id);
+
+-- 不活跃用户清理: 按最后活动时间筛选候选用户
+CREATE INDEX IF NOT EXISTS idx_users_last_active_time ON users (last_active_time);
+
+-- 活跃用户统计
+CREATE INDEX IF NOT EXISTS idx_users_is_active ON users (is_active);
+
+-- 创建房间前检查房间名是否已存在
+CREATE INDEX IF NOT EXISTS idx_rooms_name ON rooms (name);
@@ -0,0 +1,2 @@
+-- 房间乐观锁版本号，已有房间从0开始
+ALTER TABLE rooms ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
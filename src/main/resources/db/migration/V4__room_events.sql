@@ -0,0 +1,15 @@
+-- 房间事件日志(事务性发件箱)，seq 由中继在提交后分配
+CREATE TABLE room_events (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    seq        BIGINT,
+    room_id    BIGINT NOT NULL,
+    event_type VARCHAR(16) NOT NULL,
+    username   VARCHAR(255),
+    payload    CLOB,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_room_events PRIMARY KEY (id),
+    CONSTRAINT ck_room_events_type CHECK (event_type IN ('CREATED', 'JOINED', 'LEFT', 'STARTED', 'ENDED', 'DELETED'))
+);
+
+-- 偏移量唯一，多个节点同时分配时后提交者失败
+CREATE UNIQUE INDEX idx_room_events_seq ON room_events (seq);
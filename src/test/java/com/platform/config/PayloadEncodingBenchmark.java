@@ -0,0 +1,140 @@
+package com.platform.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CBOR消息体编码基准
+ * <p>
+ * 按本服务实际发送的几种消息结构，比较JSON和CBOR的消息体大小，
+ * 以及JSON编码、CBOR编码和 {@link PayloadEncodingInterceptor} 将JSON转码为CBOR的耗时(纳秒/帧)。
+ * 不属于单元测试，不随 mvn test 运行，需要时手动执行:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.platform.config.PayloadEncodingBenchmark [迭代次数]
+ * </pre>
+ * 迭代次数默认为200000，正式计时前先以相同次数预热
+ * </p>
+ */
+public class PayloadEncodingBenchmark {
+
+    private static final long TIMESTAMP = 1_760_000_000_000L;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private final PayloadEncodingInterceptor interceptor = new PayloadEncodingInterceptor();
+    private final int iterations;
+    // 防止编码结果被优化掉
+    private long sink;
+
+    private PayloadEncodingBenchmark(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        PayloadEncodingBenchmark benchmark = new PayloadEncodingBenchmark(iterations);
+        System.out.printf("%-16s %7s %7s %6s %9s %9s %10s%n",
+                "shape", "json B", "cbor B", "saved", "json enc", "cbor enc", "transcode");
+        benchmark.run("lobby message", lobbyMessage());
+        benchmark.run("rooms.updates", roomUpdate());
+        benchmark.run("room.detail", roomDetail());
+        benchmark.run("users.status", userStatus());
+        benchmark.run("system summary", systemSummary());
+        if (benchmark.sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private void run(String label, Map<String, Object> payload) throws Exception {
+        byte[] json = jsonMapper.writeValueAsBytes(payload);
+        byte[] cbor = interceptor.transcodeToCbor(json);
+
+        double jsonNanos = time(() -> jsonMapper.writeValueAsBytes(payload).length);
+        double cborNanos = time(() -> cborMapper.writeValueAsBytes(payload).length);
+        double transcodeNanos = time(() -> interceptor.transcodeToCbor(json).length);
+
+        System.out.printf("%-16s %7d %7d %5.0f%% %9.0f %9.0f %10.0f%n", label, json.length, cbor.length,
+                100.0 * (json.length - cbor.length) / json.length, jsonNanos, cborNanos, transcodeNanos);
+    }
+
+    private interface Encoder {
+        int encode() throws Exception;
+    }
+
+    /**
+     * 预热后计时，返回每次编码的平均耗时(纳秒)
+     */
+    private double time(Encoder encoder) throws Exception {
+        for (int i = 0; i < iterations; i++) {
+            sink += encoder.encode();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += encoder.encode();
+        }
+        return (double) (System.nanoTime() - start) / iterations;
+    }
+
+    private static Map<String, Object> lobbyMessage() {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("sender", "player_1024");
+        message.put("message", "有人一起开一局吗？房间已经建好了");
+        message.put("timestamp", TIMESTAMP);
+        message.put("type", "LOBBY_MESSAGE");
+        message.put("id", 18_734L);
+        return message;
+    }
+
+    private static Map<String, Object> roomUpdate() {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("roomId", 4_211L);
+        message.put("action", "JOINED");
+        message.put("username", "player_1024");
+        message.put("players", List.of("host_77", "player_1024", "guest_5"));
+        message.put("roomStatus", "WAITING");
+        message.put("timestamp", TIMESTAMP);
+        return message;
+    }
+
+    private static Map<String, Object> roomDetail() {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("id", 4_211L);
+        message.put("name", "周末联机");
+        message.put("gameName", "stardew-valley");
+        message.put("maxPlayers", 4);
+        message.put("creatorUsername", "host_77");
+        message.put("status", "WAITING");
+        message.put("players", List.of("host_77", "player_1024", "guest_5"));
+        message.put("networkId", "room_4211_1760000000000");
+        message.put("networkName", "room-4211");
+        message.put("networkType", "N2N");
+        message.put("timestamp", TIMESTAMP);
+        return message;
+    }
+
+    private static Map<String, Object> userStatus() {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("timestamp", TIMESTAMP);
+        message.put("username", "player_1024");
+        message.put("online", true);
+        return message;
+    }
+
+    private static Map<String, Object> systemSummary() {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("sender", "系统");
+        message.put("message", "3 名用户离开了房间");
+        message.put("timestamp", TIMESTAMP);
+        message.put("type", "SYSTEM_MESSAGE");
+        message.put("details", Arrays.asList("用户 host_77 离开了房间", "用户 player_1024 离开了房间",
+                "用户 guest_5 离开了房间"));
+        message.put("count", 3);
+        return message;
+    }
+}
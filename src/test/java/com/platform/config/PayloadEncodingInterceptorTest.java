@@ -0,0 +1,132 @@
+package com.platform.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * STOMP消息体编码协商拦截器测试
+ */
+class PayloadEncodingInterceptorTest {
+
+    private static final byte[] JSON = "{\"type\":\"ROOM_UPDATE\",\"roomId\":42,\"players\":[\"alice\",\"bob\"],\"full\":false}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final PayloadEncodingInterceptor interceptor = new PayloadEncodingInterceptor();
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    /**
+     * 声明CBOR的会话收到二进制消息体，解码后与原JSON内容一致
+     */
+    @Test
+    void transcodesForCborSession() throws Exception {
+        connect("cbor-session", "cbor", true);
+
+        Message<?> sent = interceptor.preSend(message("cbor-session", JSON), null);
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(sent);
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, accessor.getContentType());
+        assertEquals(PayloadEncodingInterceptor.CBOR_ENCODING,
+                accessor.getFirstNativeHeader(PayloadEncodingInterceptor.ENCODING_HEADER));
+        JsonNode decoded = cborMapper.readTree((byte[]) sent.getPayload());
+        assertEquals(jsonMapper.readTree(JSON), decoded);
+    }
+
+    /**
+     * 未声明CBOR或只能发送文本帧的会话继续收到原JSON消息体
+     */
+    @Test
+    void keepsJsonForOtherSessions() {
+        connect("json-session", null, true);
+        connect("sockjs-session", "cbor", false);
+
+        Message<?> json = message("json-session", JSON);
+        Message<?> sockJs = message("sockjs-session", JSON);
+
+        assertSame(json, interceptor.preSend(json, null));
+        assertSame(sockJs, interceptor.preSend(sockJs, null));
+        assertEquals(0, interceptor.getStats().get("cborSessions"));
+    }
+
+    /**
+     * 同一条广播分发给多个CBOR会话时只转码一次
+     */
+    @Test
+    void transcodesSharedPayloadOnce() {
+        connect("first", "cbor", true);
+        connect("second", "cbor", true);
+
+        Message<?> first = interceptor.preSend(message("first", JSON), null);
+        Message<?> second = interceptor.preSend(message("second", JSON), null);
+
+        assertArrayEquals((byte[]) first.getPayload(), (byte[]) second.getPayload());
+        assertEquals(1L, interceptor.getStats().get("transcoded"));
+        assertEquals(1L, interceptor.getStats().get("cacheHits"));
+    }
+
+    /**
+     * 连接关闭后不再按CBOR发送
+     */
+    @Test
+    void forgetsSessionOnClose() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        when(session.getId()).thenReturn("closing");
+        when(session.getAttributes()).thenReturn(attributes);
+        WebSocketHandler handler = interceptor.decorate(mock(WebSocketHandler.class));
+
+        handler.afterConnectionEstablished(session);
+        connect("closing", "cbor", attributes);
+        assertEquals(1, interceptor.getStats().get("cborSessions"));
+
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        Message<?> message = message("closing", JSON);
+        assertSame(message, interceptor.preSend(message, null));
+        assertNull(StompHeaderAccessor.wrap(message).getFirstNativeHeader(PayloadEncodingInterceptor.ENCODING_HEADER));
+    }
+
+    private void connect(String sessionId, String encoding, boolean binaryFrames) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("binaryFrames", binaryFrames);
+        connect(sessionId, encoding, attributes);
+    }
+
+    private void connect(String sessionId, String encoding, Map<String, Object> attributes) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        accessor.setSessionAttributes(attributes);
+        if (encoding != null) {
+            accessor.setNativeHeader(PayloadEncodingInterceptor.ENCODING_HEADER, encoding);
+        }
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    private Message<byte[]> message(String sessionId, byte[] payload) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/lobby");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
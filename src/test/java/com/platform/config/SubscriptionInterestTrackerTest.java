@@ -0,0 +1,68 @@
+package com.platform.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订阅关注度跟踪拦截器测试
+ */
+class SubscriptionInterestTrackerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SubscriptionInterestTracker tracker =
+            new SubscriptionInterestTracker(new WebSocketBrokerProperties(), new StompMetrics(registry));
+
+    /**
+     * 应用使用的目的地折叠为固定模式，其余归为 other
+     */
+    @Test
+    void foldsDestinationsOntoAllowList() {
+        assertEquals("/topic/lobby.messages", StompMetrics.destinationPattern("/topic/lobby.messages"));
+        assertEquals("/topic/rooms.updates.{game}", StompMetrics.destinationPattern("/topic/rooms.updates.minecraft_java"));
+        assertEquals("/topic/room.{id}.messages", StompMetrics.destinationPattern("/topic/room.42.messages"));
+        assertEquals("/user/queue/direct", StompMetrics.destinationPattern("/user/queue/direct"));
+        assertEquals("other", StompMetrics.destinationPattern("/topic/whatever.123"));
+        assertEquals("other", StompMetrics.destinationPattern("/topic/rooms.updates."));
+        assertEquals("other", StompMetrics.destinationPattern(null));
+    }
+
+    /**
+     * 客户端订阅任意目的地时指标标签数和统计表大小都不增长
+     */
+    @Test
+    void unknownDestinationsAreNotTracked() {
+        for (int i = 0; i < 100; i++) {
+            tracker.preSend(subscribe("session", "sub-" + i, "/topic/random." + i), null);
+        }
+        tracker.preSend(subscribe("session", "updates", "/topic/rooms.updates"), null);
+
+        assertEquals(1, tracker.getStats().get("destinations"));
+        assertTrue(tracker.shouldPublish("/topic/rooms.updates"));
+        assertFalse(tracker.shouldPublish("/topic/random.1"));
+        assertEquals(2, registry.find("stomp.subscriptions").gauges().size());
+        assertEquals(100.0, registry.get("stomp.subscriptions").tag("destination", "other").gauge().value());
+
+        StompHeaderAccessor disconnect = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        disconnect.setSessionId("session");
+        tracker.preSend(MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()), null);
+
+        assertEquals(0, tracker.getStats().get("destinations"));
+        assertEquals(0.0, registry.get("stomp.subscriptions").tag("destination", "other").gauge().value());
+    }
+
+    private Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
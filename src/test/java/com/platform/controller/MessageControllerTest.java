@@ -0,0 +1,124 @@
+package com.platform.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 消息接口测试
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:message-test;DB_CLOSE_ON_EXIT=FALSE",
+        "chat.moderators=search-moderator"
+})
+@AutoConfigureMockMvc
+class MessageControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 房间消息经异步校验后写入历史，发送后应能从房间历史中读回
+     */
+    @Test
+    void roomMessageAppearsInHistory() throws Exception {
+        MockHttpSession session = login("history-tester");
+        long roomId = createRoom(session, "history-room");
+
+        mockMvc.perform(post("/api/messages/room/" + roomId).session(session)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"message\":\"hello room\"}"))
+                .andExpect(status().isOk());
+
+        // 消息由聊天流水线异步校验和保存，轮询历史直到出现
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            MvcResult history = mockMvc.perform(get("/api/messages/room/" + roomId + "/history").session(session))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode messages = objectMapper.readTree(history.getResponse().getContentAsString());
+            if (messages.size() > 0) {
+                assertEquals(1, messages.size());
+                assertEquals("history-tester", messages.get(0).get("sender").asText());
+                assertEquals("hello room", messages.get(0).get("message").asText());
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("房间消息未写入历史");
+    }
+
+    /**
+     * 普通用户不能搜索其他房间的消息，管理员可以搜索所有房间
+     */
+    @Test
+    void onlyModeratorsSearchOtherRooms() throws Exception {
+        MockHttpSession member = login("search-member");
+        long roomId = createRoom(member, "search-room");
+        mockMvc.perform(post("/api/messages/room/" + roomId).session(member)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"message\":\"secret rendezvous\"}"))
+                .andExpect(status().isOk());
+
+        // 消息由聊天流水线异步写入索引，等待房间成员能搜到
+        long deadline = System.currentTimeMillis() + 5000;
+        while (search(member, "q=rendezvous&room=" + roomId).size() == 0) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("房间消息未写入搜索索引");
+            }
+            Thread.sleep(50);
+        }
+
+        MockHttpSession outsider = login("search-outsider");
+        mockMvc.perform(get("/api/messages/search?q=rendezvous&room=" + roomId).session(outsider))
+                .andExpect(status().isForbidden());
+        assertEquals(0, search(outsider, "q=rendezvous").size());
+
+        MockHttpSession moderator = login("search-moderator");
+        assertEquals(1, search(moderator, "q=rendezvous&room=" + roomId).size());
+        JsonNode all = search(moderator, "q=rendezvous");
+        assertEquals(1, all.size());
+        assertEquals("search-member", all.get(0).get("sender").asText());
+    }
+
+    private MockHttpSession login(String username) throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        mockMvc.perform(post("/api/users/login").session(session)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"secret\"}"))
+                .andExpect(status().isOk());
+        return session;
+    }
+
+    private long createRoom(MockHttpSession session, String roomName) throws Exception {
+        MvcResult created = mockMvc.perform(post("/api/rooms").session(session)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"roomName\":\"" + roomName + "\",\"gameName\":\"test-game\",\"maxPlayers\":4}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    private JsonNode search(MockHttpSession session, String query) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/messages/search?" + query).session(session))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,50 @@
+package com.platform.controller;
+
+import com.platform.entity.Room;
+import com.platform.service.RoomService;
+import com.platform.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * WebSocket控制器测试
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:websocket-controller-test;DB_CLOSE_ON_EXIT=FALSE")
+class WebSocketControllerTest {
+
+    @Autowired
+    private WebSocketController webSocketController;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * 不在房间内的用户发送房间消息时回执失败，房间成员的消息被接收
+     */
+    @Test
+    void roomMessageAckChecksMembership() {
+        userService.registerUser("ack-member", "secret", "127.0.0.1", "ack-member-session");
+        userService.registerUser("ack-outsider", "secret", "127.0.0.1", "ack-outsider-session");
+        Room room = roomService.createRoom("ack-member", "ack-room", "test-game", 4);
+        assertNotNull(room);
+
+        Map<String, Object> rejected = webSocketController.handleRoomMessage(room.getId(),
+                Map.of("clientId", "c1", "message", "hello"), () -> "ack-outsider");
+        assertEquals(false, rejected.get("accepted"));
+        assertEquals("用户不在该房间内", rejected.get("error"));
+        assertEquals("c1", rejected.get("clientId"));
+
+        Map<String, Object> accepted = webSocketController.handleRoomMessage(room.getId(),
+                Map.of("clientId", "c2", "message", "hello"), () -> "ack-member");
+        assertEquals(true, accepted.get("accepted"));
+    }
+}
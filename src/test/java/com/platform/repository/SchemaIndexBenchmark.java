@@ -0,0 +1,238 @@
+package com.platform.repository;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 热点查询索引基准
+ * <p>
+ * 在内存H2中执行V1、V2迁移并写入10万用户、1万房间、3万条房间成员记录，
+ * 先删除V2建立的索引测量一次，再重新执行V2(可重复执行)测量一次，输出每次查询耗时和所用索引。
+ * 不属于单元测试，不随 mvn test 运行，需要时手动执行:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.platform.repository.SchemaIndexBenchmark [不活跃用户间隔]
+ * </pre>
+ * 不活跃用户间隔默认为10，即10%的用户超过180天未活跃；传入200对应0.5%的稳定状态
+ * </p>
+ */
+public class SchemaIndexBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int ROOMS = 10_000;
+    private static final int GAMES = 50;
+    private static final List<String> V2_INDEXES = List.of(
+            "idx_room_players_username", "idx_rooms_joinable", "idx_users_last_active_time",
+            "idx_users_is_active", "idx_rooms_name");
+
+    private final Connection connection;
+    private final Random random = new Random(7);
+    private final int inactiveEvery;
+
+    private SchemaIndexBenchmark(Connection connection, int inactiveEvery) {
+        this.connection = connection;
+        this.inactiveEvery = inactiveEvery;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int inactiveEvery = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:index-benchmark", "sa", "")) {
+            SchemaIndexBenchmark benchmark = new SchemaIndexBenchmark(connection, inactiveEvery);
+            benchmark.execute("SET OPTIMIZE_REUSE_RESULTS FALSE");
+            benchmark.migrate("V1__baseline_schema.sql");
+            benchmark.migrate("V2__room_members_and_indexes.sql");
+            benchmark.populate();
+
+            for (String index : V2_INDEXES) {
+                benchmark.execute("DROP INDEX " + index);
+            }
+            benchmark.execute("ANALYZE");
+            benchmark.run("before");
+
+            benchmark.migrate("V2__room_members_and_indexes.sql");
+            benchmark.execute("ANALYZE");
+            benchmark.run("after");
+        }
+    }
+
+    private void migrate(String script) throws Exception {
+        String sql = new String(new ClassPathResource("db/migration/" + script).getInputStream().readAllBytes(),
+                StandardCharsets.UTF_8);
+        for (String statement : sql.split(";")) {
+            if (!statement.replaceAll("--.*", "").isBlank()) {
+                execute(statement);
+            }
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private void populate() throws SQLException {
+        Instant now = Instant.now();
+        connection.setAutoCommit(false);
+        try (PreparedStatement users = connection.prepareStatement(
+                "INSERT INTO users (username, password, session_id, last_active_time, is_active) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < USERS; i++) {
+                Instant lastActive = i % inactiveEvery == 0
+                        ? now.minus(Duration.ofDays(200 + random.nextInt(100)))
+                        : now.minus(Duration.ofMinutes(random.nextInt(60 * 24 * 90)));
+                users.setString(1, "user" + i);
+                users.setString(2, "p");
+                users.setString(3, "s" + i);
+                users.setObject(4, OffsetDateTime.ofInstant(lastActive, ZoneOffset.UTC));
+                users.setBoolean(5, i % 5 == 0);
+                users.addBatch();
+                if (i % 1000 == 999) {
+                    users.executeBatch();
+                }
+            }
+            users.executeBatch();
+        }
+        try (PreparedStatement rooms = connection.prepareStatement(
+                "INSERT INTO rooms (name, game_name, max_players, player_count, room_status) VALUES (?, ?, 4, 3, ?)")) {
+            for (int i = 0; i < ROOMS; i++) {
+                rooms.setString(1, "room-" + i);
+                rooms.setString(2, "game" + (i % GAMES));
+                rooms.setString(3, i % 3 == 0 ? "PLAYING" : "WAITING");
+                rooms.addBatch();
+            }
+            rooms.executeBatch();
+        }
+        try (PreparedStatement members = connection.prepareStatement(
+                "INSERT INTO room_players (room_id, username) VALUES (?, ?)")) {
+            for (int i = 0; i < ROOMS * 3; i++) {
+                members.setLong(1, i / 3 + 1);
+                members.setString(2, "user" + (i * 3 + 1));
+                members.addBatch();
+            }
+            members.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private void run(String phase) throws SQLException {
+        OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC).minusDays(180);
+        System.out.println(phase + ":");
+        purgeEnumeration(cutoff);
+        time("findByPlayerUsername",
+                "SELECT r.* FROM room_players m JOIN rooms r ON r.id = m.room_id WHERE m.username = ?", 2000,
+                ps -> ps.setString(1, "user" + random.nextInt(USERS)));
+        time("findInactiveUserIds",
+                "SELECT id FROM users WHERE last_active_time < ? AND id > ? ORDER BY id LIMIT 500", 200,
+                ps -> {
+                    ps.setObject(1, cutoff);
+                    ps.setLong(2, random.nextInt(USERS / 2));
+                });
+        time("countInactiveUsers",
+                "SELECT COUNT(id) FROM users WHERE last_active_time < ? AND id > ?", 200,
+                ps -> {
+                    ps.setObject(1, cutoff);
+                    ps.setLong(2, random.nextInt(10));
+                });
+        time("countByActiveTrue", "SELECT COUNT(id) FROM users WHERE is_active = TRUE", 200, ps -> { });
+        time("findByName", "SELECT * FROM rooms WHERE name = ?", 2000,
+                ps -> ps.setString(1, "room-" + random.nextInt(ROOMS)));
+        time("findJoinableByGame",
+                "SELECT * FROM rooms WHERE room_status = 'WAITING' AND game_name = ? AND player_count < max_players", 2000,
+                ps -> ps.setString(1, "game" + random.nextInt(GAMES)));
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    /**
+     * 预热后重复执行，输出平均耗时和执行计划中使用的索引
+     */
+    private void time(String label, String sql, int iterations, Binder binder) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < Math.min(iterations, 20); i++) {
+                binder.bind(statement);
+                drain(statement.executeQuery());
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                binder.bind(statement);
+                drain(statement.executeQuery());
+            }
+            double micros = (System.nanoTime() - start) / 1e3 / iterations;
+            System.out.printf("  %-24s %10.1f us/query   %s%n", label, micros, plannedIndex(sql, binder));
+        }
+    }
+
+    private String plannedIndex(String sql, Binder binder) throws SQLException {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            binder.bind(explain);
+            try (ResultSet plan = explain.executeQuery()) {
+                plan.next();
+                String text = plan.getString(1).replaceAll("\\s+", " ");
+                int from = text.indexOf("/*");
+                return from < 0 ? "?" : text.substring(from + 2, text.indexOf("*/", from)).trim();
+            }
+        }
+    }
+
+    /**
+     * 一次完整清理的候选枚举: 统计一次，再按游标逐页取ID，取5次中最快的一次
+     */
+    private void purgeEnumeration(OffsetDateTime cutoff) throws SQLException {
+        long best = Long.MAX_VALUE;
+        int pages = 0;
+        try (PreparedStatement count = connection.prepareStatement(
+                "SELECT COUNT(id) FROM users WHERE last_active_time < ? AND id > ?");
+             PreparedStatement page = connection.prepareStatement(
+                     "SELECT id FROM users WHERE last_active_time < ? AND id > ? ORDER BY id LIMIT 500")) {
+            for (int round = 0; round < 5; round++) {
+                long start = System.nanoTime();
+                count.setObject(1, cutoff);
+                count.setLong(2, 0);
+                drain(count.executeQuery());
+                long cursor = 0;
+                pages = 0;
+                while (true) {
+                    page.setObject(1, cutoff);
+                    page.setLong(2, cursor);
+                    long last = -1;
+                    try (ResultSet ids = page.executeQuery()) {
+                        while (ids.next()) {
+                            last = ids.getLong(1);
+                        }
+                    }
+                    pages++;
+                    if (last < 0) {
+                        break;
+                    }
+                    cursor = last;
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+        }
+        System.out.printf("  %-24s %10.1f ms total (%d pages)%n", "purge enumeration", best / 1e6, pages);
+    }
+
+    private static void drain(ResultSet resultSet) throws SQLException {
+        try (resultSet) {
+            while (resultSet.next()) {
+                // 只取结果，不处理
+            }
+        }
+    }
+}
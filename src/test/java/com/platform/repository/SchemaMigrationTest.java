@@ -0,0 +1,59 @@
+package com.platform.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 数据库迁移测试
+ * <p>
+ * 模拟最初版本由 ddl-auto=update 建出、没有迁移记录的数据库：
+ * 启动时应以V1为基线执行后续迁移，并通过Hibernate的结构校验
+ * </p>
+ */
+@SpringBootTest(properties = "spring.datasource.url=" + SchemaMigrationTest.URL)
+class SchemaMigrationTest {
+
+    static final String URL = "jdbc:h2:mem:schema-upgrade;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void createBaselineDatabase() throws Exception {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:db/migration/V1__baseline_schema.sql'");
+            statement.execute("INSERT INTO users (username, password, is_active) VALUES ('a', 'p', TRUE), ('b', 'p', TRUE), ('c', 'p', FALSE)");
+            statement.execute("INSERT INTO rooms (name, game_name, max_players, room_status) VALUES ('r1', 'g', 4, 'WAITING'), ('r2', 'g', 4, 'PLAYING')");
+            // 基线版本允许的脏数据: 同一用户在两个房间、空用户名
+            statement.execute("INSERT INTO room_players (room_id, username) VALUES (1, 'a'), (1, 'b'), (2, 'b'), (2, NULL), (2, 'c')");
+        }
+    }
+
+    @Test
+    void upgradesBaselineDatabase() {
+        assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM job_checkpoints", Integer.class));
+
+        List<Map<String, Object>> members = jdbcTemplate.queryForList(
+                "SELECT room_id, username FROM room_players ORDER BY username");
+        assertEquals(3, members.size());
+        assertEquals(2L, ((Number) members.get(1).get("ROOM_ID")).longValue());
+
+        assertEquals(List.of(1, 2), jdbcTemplate.queryForList(
+                "SELECT player_count FROM rooms ORDER BY id", Integer.class));
+        assertEquals("1", jdbcTemplate.queryForObject(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"type\" = 'BASELINE'", String.class));
+    }
+}
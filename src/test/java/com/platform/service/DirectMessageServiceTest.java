@@ -0,0 +1,52 @@
+package com.platform.service;
+
+import com.platform.config.WebSocketBrokerProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 私信服务测试
+ */
+class DirectMessageServiceTest {
+
+    private final WebSocketService webSocketService = mock(WebSocketService.class);
+    private final WebSocketBrokerProperties brokerProperties = new WebSocketBrokerProperties();
+    private final DirectMessageService directMessageService = new DirectMessageService(webSocketService,
+            mock(SimpUserRegistry.class), brokerProperties);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(directMessageService, "mailboxSize", 10);
+        ReflectionTestUtils.setField(directMessageService, "maxTotalMessages", 100);
+    }
+
+    @Test
+    void offlineMessageIsDeliveredFromMailbox() {
+        assertFalse(directMessageService.sendDirectMessage("alice", "bob", "hi"));
+        assertTrue(directMessageService.isOfflineDeliveryGuaranteed());
+
+        assertEquals(1, directMessageService.deliverMailbox("bob"));
+        verify(webSocketService, times(1)).sendMessageToUser(eq("bob"), eq(DirectMessageService.DIRECT_DESTINATION), any());
+    }
+
+    /**
+     * 多节点部署时信箱只在本节点，不保证送达
+     */
+    @Test
+    void relayModeDoesNotGuaranteeOfflineDelivery() {
+        brokerProperties.setMode("relay");
+
+        assertFalse(directMessageService.isOfflineDeliveryGuaranteed());
+    }
+}
@@ -0,0 +1,63 @@
+package com.platform.service;
+
+import com.platform.repository.RoomRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 消息服务测试
+ */
+class MessageServiceTest {
+
+    private final MessageSearchService messageSearchService = new MessageSearchService();
+    private final MessageService messageService = new MessageService(mock(WebSocketService.class),
+            mock(RoomRepository.class), messageSearchService);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(messageService, "pipelineQueueCapacity", 1000);
+        ReflectionTestUtils.setField(messageService, "pipelineBatchSize", 16);
+        ReflectionTestUtils.setField(messageService, "moderators", Set.of());
+        messageService.startPipeline();
+    }
+
+    @AfterEach
+    void tearDown() {
+        messageService.stopPipeline();
+    }
+
+    /**
+     * 房间历史清除后到达的消息不会重建历史，也不会留在搜索索引中
+     */
+    @Test
+    void clearedRoomIsNotRecreated() {
+        messageService.addRoomMessage(7L, "alice", "before delete");
+        messageService.clearRoomMessageHistory(7L);
+
+        assertNull(messageService.addRoomMessage(7L, "alice", "after delete"));
+        assertTrue(messageService.getRoomMessageHistory(7L).isEmpty());
+        assertTrue(messageService.searchMessages("delete", null, null, 10).isEmpty());
+    }
+
+    /**
+     * 停止流水线时先处理完已入队的消息
+     */
+    @Test
+    void stopDrainsQueuedMessages() {
+        for (int i = 0; i < 200; i++) {
+            assertTrue(messageService.sendLobbyMessage("alice", "message " + i));
+        }
+        messageService.stopPipeline();
+
+        assertEquals(200, messageService.getLobbyMessageHistory().size());
+    }
+}
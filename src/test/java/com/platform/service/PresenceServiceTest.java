@@ -0,0 +1,129 @@
+package com.platform.service;
+
+import com.platform.config.WebSocketBrokerProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 在线状态服务测试
+ */
+class PresenceServiceTest {
+
+    private final SimpUserRegistry simpUserRegistry = mock(SimpUserRegistry.class);
+    private final WebSocketBrokerProperties brokerProperties = new WebSocketBrokerProperties();
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final PresenceService presenceService = new PresenceService(mock(WebSocketService.class),
+            mock(ActiveUserDirectory.class), mock(TimingWheel.class), eventPublisher, simpUserRegistry,
+            brokerProperties);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(presenceService, "loginGraceSeconds", 60);
+        when(simpUserRegistry.getUser("remote")).thenReturn(mock(SimpUser.class));
+    }
+
+    /**
+     * relay模式下连接在其他节点上的用户视为在线，不会被当作断线玩家移出房间
+     */
+    @Test
+    void relayModeSeesUsersOnOtherNodes() {
+        brokerProperties.setMode("relay");
+
+        assertFalse(presenceService.isOnline("remote"));
+        assertTrue(presenceService.isOnlineInCluster("remote"));
+        assertEquals(Duration.ZERO, presenceService.getOfflineDuration("remote"));
+        assertFalse(presenceService.isOnlineInCluster("nobody"));
+    }
+
+    /**
+     * 同一用户的多个会话同时建立时只发布一次上线
+     */
+    @Test
+    void concurrentConnectsPublishOnlineOnce() throws Exception {
+        int sessions = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(sessions);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < sessions; i++) {
+                String sessionId = "session-" + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    presenceService.onSessionConnected(connected("alice", sessionId));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(true), publishedTransitions());
+        assertEquals(sessions, presenceService.getStats().get("sessions"));
+    }
+
+    /**
+     * 已经离线的用户再次登出不会重复广播离线
+     */
+    @Test
+    void logoutPublishesOfflineOnlyOnTransition() {
+        presenceService.markLoggedOut("alice");
+        presenceService.markLoggedIn("alice");
+        presenceService.markLoggedOut("alice");
+        presenceService.markLoggedOut("alice");
+
+        assertEquals(List.of(true, false), publishedTransitions());
+    }
+
+    @Test
+    void simpleModeUsesLocalSessionsOnly() {
+        assertFalse(presenceService.isOnlineInCluster("remote"));
+        assertFalse(presenceService.isClusterMode());
+    }
+
+    private SessionConnectedEvent connected(String username, String sessionId) {
+        return new SessionConnectedEvent(this, MessageBuilder.withPayload(new byte[0])
+                .setHeader(SimpMessageHeaderAccessor.SESSION_ID_HEADER, sessionId)
+                .build(), () -> username);
+    }
+
+    /**
+     * 按发布顺序返回上线(true)/离线(false)事件
+     */
+    private List<Boolean> publishedTransitions() {
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(events.capture());
+        List<Boolean> transitions = new ArrayList<>();
+        for (Object event : events.getAllValues()) {
+            transitions.add(((PresenceChangedEvent) event).isOnline());
+        }
+        return transitions;
+    }
+}
@@ -0,0 +1,109 @@
+package com.platform.service;
+
+import com.platform.entity.RoomEvent;
+import com.platform.enums.RoomEventType;
+import com.platform.repository.JobCheckpointRepository;
+import com.platform.repository.RoomEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 房间事件中继测试
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:relay-test;DB_CLOSE_ON_EXIT=FALSE")
+class RoomEventRelayTest {
+
+    private static final int EVENTS = 500;
+
+    @MockBean
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private RoomEventRelay scheduledRelay;
+
+    @Autowired
+    private RoomEventRepository roomEventRepository;
+
+    @Autowired
+    private JobCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private RoomEventJournal roomEventJournal;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 多个节点同时中继时每个事件只投递一次
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void concurrentRelaysDeliverEachEventOnce() throws Exception {
+        List<RoomEvent> events = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(new RoomEvent((long) i, RoomEventType.JOINED, "user" + i, null));
+        }
+        roomEventRepository.saveAll(events);
+
+        // 模拟另外两个节点，与定时任务中的中继共享同一个数据库
+        List<RoomEventRelay> relays = List.of(scheduledRelay, newRelay(), newRelay());
+        ExecutorService executor = Executors.newFixedThreadPool(relays.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (RoomEventRelay relay : relays) {
+                futures.add(executor.submit(() -> {
+                    long deadline = System.currentTimeMillis() + 30000;
+                    while (System.currentTimeMillis() < deadline
+                            && ((Number) relay.getStats().get("deliveredOffset")).longValue() < EVENTS) {
+                        relay.relay();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ArgumentCaptor<Object> messages = ArgumentCaptor.forClass(Object.class);
+        verify(webSocketService, atLeastOnce()).broadcastToSubscribers(eq(RoomEventRelay.ROOM_EVENTS_TOPIC), messages.capture());
+        Set<Object> offsets = new HashSet<>();
+        for (Object message : messages.getAllValues()) {
+            offsets.add(((Map<String, Object>) message).get("offset"));
+        }
+        assertEquals(EVENTS, offsets.size());
+        assertEquals(EVENTS, messages.getAllValues().size());
+    }
+
+    private RoomEventRelay newRelay() {
+        RoomEventRelay relay = new RoomEventRelay(roomEventRepository, checkpointRepository, roomEventJournal,
+                webSocketService, eventPublisher, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "batchSize", 20);
+        return relay;
+    }
+}
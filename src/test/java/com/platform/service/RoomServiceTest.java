@@ -0,0 +1,68 @@
+package com.platform.service;
+
+import com.platform.entity.Room;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 房间服务测试
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:room-test;DB_CLOSE_ON_EXIT=FALSE")
+class RoomServiceTest {
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private VirtualNetworkFactory networkFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 虚拟IP在房间事务提交后分配，并写入用户记录
+     */
+    @Test
+    void assignsVirtualIpAfterJoin() {
+        userService.registerUser("ip-owner", "secret", "127.0.0.1", "ip-owner-session");
+        userService.registerUser("ip-guest", "secret", "127.0.0.1", "ip-guest-session");
+        Room room = roomService.createRoom("ip-owner", "ip-room", "test-game", 4);
+        assertNotNull(room);
+
+        assertTrue(roomService.joinRoom("ip-guest", room.getId()));
+
+        assertNotNull(userService.findByUsername("ip-owner").getVirtualIp());
+        assertNotNull(userService.findByUsername("ip-guest").getVirtualIp());
+        assertEquals(room.getId(), userService.findByUsername("ip-guest").getRoomId());
+    }
+
+    /**
+     * 离开房间的事务回滚时，虚拟IP和虚拟网络保持不变
+     */
+    @Test
+    void rolledBackLeaveKeepsNetworkResources() {
+        userService.registerUser("rollback-owner", "secret", "127.0.0.1", "rollback-owner-session");
+        Room room = roomService.createRoom("rollback-owner", "rollback-room", "test-game", 4);
+        assertNotNull(room);
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            assertTrue(roomService.leaveRoom("rollback-owner"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(room.getId(), roomService.getUserRoom("rollback-owner").getId());
+        // IP分配仍然存在，说明网络未被删除、IP未被释放
+        assertTrue(networkFactory.getService().removeIpAddress("rollback-owner", room.getNetworkId()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.platform.service;
+
+import com.platform.entity.User;
+import com.platform.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 会话用户缓存测试
+ */
+class SessionUserCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SessionUserCache cache = new SessionUserCache(userRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300);
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+    }
+
+    @Test
+    void cachesResolvedUser() {
+        when(userRepository.findBySessionId("session")).thenReturn(activeUser());
+
+        assertEquals("alice", cache.resolve("session").getUsername());
+        assertEquals("alice", cache.resolve("session").getUsername());
+        verify(userRepository, times(1)).findBySessionId("session");
+    }
+
+    /**
+     * 查询数据库期间会话被失效(如登出)时，查询到的旧用户不应写入缓存
+     */
+    @Test
+    void invalidationDuringLoadIsNotOverwritten() {
+        User loggedOut = activeUser();
+        loggedOut.setActive(false);
+        when(userRepository.findBySessionId("session")).thenAnswer(invocation -> {
+            cache.invalidate("session");
+            return activeUser();
+        }).thenReturn(loggedOut);
+
+        assertEquals("alice", cache.resolve("session").getUsername());
+        assertNull(cache.resolve("session"));
+        verify(userRepository, times(2)).findBySessionId("session");
+    }
+
+    private User activeUser() {
+        User user = new User("alice", "secret", "127.0.0.1", "session");
+        user.setActive(true);
+        return user;
+    }
+}
@@ -0,0 +1,58 @@
+package com.platform.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 时间轮测试
+ */
+class TimingWheelTest {
+
+    private final TimingWheel timingWheel = new TimingWheel(1, 1, new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        timingWheel.shutdown();
+    }
+
+    /**
+     * 回调阻塞时推进线程不受影响，后续到期的回调排队等待执行
+     */
+    @Test
+    void slowCallbackDoesNotBlockAdvance() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        timingWheel.schedule("slow", Duration.ZERO, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        timingWheel.schedule("next", Duration.ofMillis(5), done::countDown);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        int submitted = 0;
+        while (submitted < 2 && System.currentTimeMillis() < deadline) {
+            submitted += timingWheel.advance();
+            Thread.sleep(1);
+        }
+
+        assertEquals(2, submitted);
+        assertEquals(0, timingWheel.getPendingCount());
+        // 单个回调线程被占用，两个回调都已提交但尚未完成
+        assertEquals(2, done.getCount());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
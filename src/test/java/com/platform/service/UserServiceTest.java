@@ -0,0 +1,42 @@
+package com.platform.service;
+
+import com.platform.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 用户服务测试
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:user-test;DB_CLOSE_ON_EXIT=FALSE")
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserActivityTracker activityTracker;
+
+    /**
+     * 登出后迟到的心跳被写回时不应把用户重新标记为活跃，旧会话也不能再解析到该用户
+     */
+    @Test
+    void lateHeartbeatDoesNotReactivateLoggedOutUser() {
+        User user = userService.registerUser("logout-tester", "secret", "127.0.0.1", "logout-session");
+        assertNotNull(user);
+        assertTrue(userService.logoutUser("logout-session"));
+
+        userService.recordActivity("logout-tester");
+        activityTracker.flush();
+
+        User reloaded = userService.findByUsername("logout-tester");
+        assertFalse(reloaded.isActive());
+        assertNull(reloaded.getSessionId());
+        assertNull(userService.findBySessionId("logout-session"));
+    }
+}